@@ -0,0 +1,332 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.gameval.VarbitID;
+import net.runelite.api.widgets.Widget;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.plugins.PluginManager;
+import net.runelite.client.plugins.prayer.PrayerPlugin;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * In-memory stand-ins for the RuneLite services the plugin uses: a map-backed ConfigManager, a Client
+ * that only holds varbits and game state, and a ClientThread that runs tasks immediately or, when
+ * {@link #deferClientThread} is set, queues them until {@link #runClientThread()}.
+ * <p>
+ * Config writes, varbit sets and script runs are counted, and changes are posted to {@link #eventSink}
+ * as ConfigChanged and VarbitChanged events like the real client does.
+ */
+final class FakeRuneLite {
+    /**
+     * Prayers in the standard prayerbook.
+     */
+    static final int PRAYER_COUNT = 29;
+
+    /**
+     * Config values keyed by "group.key". Concurrent because the store flushes on its own thread.
+     */
+    final Map<String, String> config = new ConcurrentHashMap<>();
+    final Map<Integer, Integer> varbits = new ConcurrentHashMap<>();
+    volatile GameState gameState = GameState.LOGGED_IN;
+
+    /**
+     * Whether the prayerbook widget exists, so redraws reach runScript.
+     */
+    volatile boolean prayerbookLoaded = true;
+
+    /**
+     * Thread that plays the client thread: the one that created the fakes.
+     */
+    final Thread clientThreadOwner = Thread.currentThread();
+
+    volatile boolean deferClientThread;
+    private final Queue<Runnable> clientThreadQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Receives ConfigChanged and VarbitChanged events, or null to drop them.
+     */
+    volatile Consumer<Object> eventSink;
+
+    final AtomicLong configWrites = new AtomicLong();
+    final AtomicLong varbitSets = new AtomicLong();
+    final AtomicLong scriptRuns = new AtomicLong();
+
+    final ConfigManager configManager;
+    final ClientThread clientThread;
+    final Client client;
+    final PluginManager pluginManager;
+    final PrayerPlugin prayerPlugin;
+
+    FakeRuneLite() {
+        configManager = stub(ConfigManager.class);
+        when(configManager.getConfiguration(anyString(), anyString()))
+                .thenAnswer(inv -> config.get(inv.getArgument(0) + "." + inv.getArgument(1)));
+        doAnswer(inv -> {
+            setConfig(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2));
+            return null;
+        }).when(configManager).setConfiguration(anyString(), anyString(), anyString());
+        doAnswer(inv -> {
+            setConfig(inv.getArgument(0), inv.getArgument(1), null);
+            return null;
+        }).when(configManager).unsetConfiguration(anyString(), anyString());
+        when(configManager.getConfigurationKeys(anyString())).thenAnswer(inv -> {
+            String prefix = inv.getArgument(0);
+            List<String> keys = new ArrayList<>();
+            for (String key : config.keySet()) {
+                if (key.startsWith(prefix)) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        });
+
+        clientThread = stub(ClientThread.class);
+        doAnswer(inv -> {
+            runOnClientThread(inv.getArgument(0));
+            return null;
+        }).when(clientThread).invokeLater(any(Runnable.class));
+        doAnswer(inv -> {
+            runOnClientThread(inv.getArgument(0));
+            return null;
+        }).when(clientThread).invoke(any(Runnable.class));
+
+        Widget prayerWidget = (Widget) Proxy.newProxyInstance(Widget.class.getClassLoader(),
+                new Class<?>[]{Widget.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getOnVarTransmitListener")) {
+                        return new Object[0];
+                    }
+                    return objectMethod(proxy, method.getName(), args, "FakeWidget", method.getReturnType());
+                });
+
+        client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getVarbitValue":
+                            return varbits.getOrDefault((Integer) args[0], 0);
+                        case "setVarbit":
+                            setVarbit((Integer) args[0], (Integer) args[1]);
+                            return null;
+                        case "getGameState":
+                            return gameState;
+                        case "isClientThread":
+                            return Thread.currentThread() == clientThreadOwner;
+                        case "getWidget":
+                            return prayerbookLoaded && args.length == 2 && args[0].equals(InterfaceID.PRAYERBOOK)
+                                    ? prayerWidget : null;
+                        case "runScript":
+                            scriptRuns.incrementAndGet();
+                            return null;
+                        default:
+                            return objectMethod(proxy, method.getName(), args, "FakeClient", method.getReturnType());
+                    }
+                });
+
+        pluginManager = stub(PluginManager.class);
+        prayerPlugin = stub(PrayerPlugin.class);
+        when(pluginManager.isPluginEnabled(any())).thenReturn(true);
+    }
+
+    /**
+     * Creates a mock that does not record invocations, so long benchmark runs neither allocate for
+     * Mockito's bookkeeping nor grow the heap with every config read.
+     */
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    /**
+     * Runs queued client thread tasks, including tasks they queue, until none are left.
+     */
+    void runClientThread() {
+        Runnable task;
+        while ((task = clientThreadQueue.poll()) != null) {
+            task.run();
+        }
+    }
+
+    boolean hasQueuedClientThreadWork() {
+        return !clientThreadQueue.isEmpty();
+    }
+
+    void resetCounters() {
+        configWrites.set(0);
+        varbitSets.set(0);
+        scriptRuns.set(0);
+    }
+
+    private void runOnClientThread(Runnable task) {
+        if (deferClientThread) {
+            clientThreadQueue.add(task);
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Sets or unsets a config value, posting ConfigChanged only if the value changed like ConfigManager does.
+     */
+    void setConfig(String group, String key, String value) {
+        configWrites.incrementAndGet();
+        String fullKey = group + "." + key;
+        String oldValue = value == null ? config.remove(fullKey) : config.put(fullKey, value);
+
+        Consumer<Object> sink = eventSink;
+        if (sink != null && !Objects.equals(oldValue, value)) {
+            ConfigChanged event = new ConfigChanged();
+            event.setGroup(group);
+            event.setKey(key);
+            event.setOldValue(oldValue);
+            event.setNewValue(value);
+            sink.accept(event);
+        }
+    }
+
+    void setVarbit(int varbitId, int value) {
+        varbitSets.incrementAndGet();
+        Integer oldValue = varbits.put(varbitId, value);
+
+        Consumer<Object> sink = eventSink;
+        if (sink != null && (oldValue == null ? 0 : oldValue) != value) {
+            VarbitChanged event = new VarbitChanged();
+            event.setVarbitId(varbitId);
+            event.setValue(value);
+            sink.accept(event);
+        }
+    }
+
+    static String loadoutName(int i) {
+        return "Loadout " + i;
+    }
+
+    /**
+     * Builds a loadout for the standard prayerbook with a shuffled order, a few hidden prayers and random filters.
+     */
+    static LoadoutData randomLoadout(Random random, String name) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < PRAYER_COUNT; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, random);
+
+        StringBuilder order = new StringBuilder();
+        for (int id : ids) {
+            if (order.length() > 0) {
+                order.append(',');
+            }
+            order.append(id);
+        }
+
+        Map<String, String> hidden = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            hidden.put("_" + random.nextInt(PRAYER_COUNT), "true");
+        }
+
+        LoadoutData loadout = new LoadoutData(name);
+        loadout.setPrayerOrder(0, order.toString());
+        loadout.setHiddenPrayers(0, hidden);
+        loadout.setFilters(0, new LoadoutData.FilterSettings(random.nextInt(2), random.nextInt(2),
+                random.nextInt(2), random.nextInt(2), random.nextInt(2), random.nextInt(2)));
+        return loadout;
+    }
+
+    /**
+     * Writes a library of random loadouts straight into config in the sharded format the store reads.
+     */
+    void seedLoadouts(int count, Random random) {
+        Gson gson = new Gson();
+        Map<String, String> manifest = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = loadoutName(i);
+            String shardKey = LoadoutStore.SHARD_KEY_PREFIX + LoadoutStore.toSafeKey(name);
+            manifest.put(name, shardKey);
+            config.put(LoadoutManager.CONFIG_GROUP + "." + shardKey,
+                    gson.toJson(randomLoadout(random, name), LoadoutData.class));
+        }
+        config.put(LoadoutManager.CONFIG_GROUP + "." + LoadoutStore.MANIFEST_KEY, gson.toJson(manifest));
+    }
+
+    /**
+     * Sets the live Prayer plugin config and filter varbits to match a loadout.
+     */
+    void applyLive(LoadoutData loadout, int prayerbook) {
+        varbits.put(VarbitID.PRAYERBOOK, prayerbook);
+
+        String prefix = LoadoutManager.PRAYER_CONFIG_GROUP + ".";
+        config.put(prefix + LoadoutManager.PRAYER_ORDER_KEY_PREFIX + prayerbook, loadout.getPrayerOrder(prayerbook));
+        config.keySet().removeIf(key -> key.startsWith(prefix + LoadoutManager.PRAYER_HIDDEN_KEY_PREFIX + prayerbook));
+        for (Map.Entry<String, String> entry : loadout.getHiddenPrayers(prayerbook).entrySet()) {
+            config.put(prefix + ApplyPlan.hiddenKey(prayerbook, entry.getKey()), entry.getValue());
+        }
+
+        LoadoutData.FilterSettings filters = loadout.getFilters(prayerbook);
+        if (filters != null) {
+            varbits.put(VarbitID.PRAYER_FILTER_BLOCKLOWTIER, filters.getBlockLowTier());
+            varbits.put(VarbitID.PRAYER_FILTER_ALLOWCOMBINEDTIER, filters.getAllowCombinedTier());
+            varbits.put(VarbitID.PRAYER_FILTER_BLOCKHEALING, filters.getBlockHealing());
+            varbits.put(VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL, filters.getBlockLackLevel());
+            varbits.put(VarbitID.PRAYER_FILTER_BLOCKLOCKED, filters.getBlockLocked());
+            varbits.put(VarbitID.PRAYER_HIDEFILTERBUTTON, filters.getHideFilterButton());
+        }
+    }
+
+    private static Object objectMethod(Object proxy, String name, Object[] args, String description, Class<?> type) {
+        switch (name) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return description;
+            default:
+                return defaultValue(type);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0d;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == char.class) {
+            return '\0';
+        }
+        return null;
+    }
+}
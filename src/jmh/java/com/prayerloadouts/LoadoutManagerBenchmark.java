@@ -0,0 +1,125 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the loadout storage and active detection paths at different library sizes.
+ * Run with {@code ./gradlew jmh}, which adds the GC profiler for allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadoutManagerBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int librarySize;
+
+    private ScheduledExecutorService executor;
+    private LoadoutManager loadoutManager;
+    private LoadoutSerializer loadoutSerializer;
+
+    /**
+     * Loadout in the middle of the library that the live state matches.
+     */
+    private String targetName;
+    private String exportText;
+    private String renamedName;
+    private boolean renamed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FakeRuneLite fake = new FakeRuneLite();
+        fake.seedLoadouts(librarySize, new Random(42));
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        PluginMetrics metrics = new PluginMetrics();
+        LoadoutStore loadoutStore = new LoadoutStore(fake.configManager, new Gson(), executor, metrics);
+        PrayerStateManager prayerStateManager = new PrayerStateManager(fake.client, fake.clientThread,
+                fake.configManager, fake.pluginManager, fake.prayerPlugin);
+        loadoutManager = new LoadoutManager(fake.client, prayerStateManager, loadoutStore, metrics, executor);
+        loadoutSerializer = new LoadoutSerializer(loadoutManager);
+
+        targetName = FakeRuneLite.loadoutName(librarySize / 2);
+        renamedName = targetName + " (renamed)";
+        fake.applyLive(loadoutManager.getLoadout(targetName), 0);
+        loadoutManager.updateCachedFilters();
+        exportText = loadoutSerializer.exportToString(targetName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loadoutManager.flush();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Map<String, LoadoutData> getAllLoadouts() {
+        return loadoutManager.getAllLoadouts();
+    }
+
+    /**
+     * Decodes every loadout from config, as after a profile switch or an external edit.
+     */
+    @Benchmark
+    public Map<String, LoadoutData> getAllLoadoutsUncached() {
+        loadoutManager.invalidateCache();
+        return loadoutManager.getAllLoadouts();
+    }
+
+    @Benchmark
+    public String getActiveLoadoutName() {
+        return loadoutManager.getActiveLoadoutName(true);
+    }
+
+    /**
+     * Captures the live state and waits for the background commit, so the whole save is measured.
+     */
+    @Benchmark
+    public void saveLoadout() throws InterruptedException {
+        CountDownLatch saved = new CountDownLatch(1);
+        loadoutManager.saveLoadout(targetName, saved::countDown);
+        saved.await();
+    }
+
+    @Benchmark
+    public void renameLoadout() {
+        if (renamed) {
+            loadoutManager.renameLoadout(renamedName, targetName);
+        } else {
+            loadoutManager.renameLoadout(targetName, renamedName);
+        }
+        renamed = !renamed;
+    }
+
+    @Benchmark
+    public String exportLoadout() {
+        return loadoutSerializer.exportToString(targetName);
+    }
+
+    @Benchmark
+    public LoadoutSerializer.ImportResult importLoadout() {
+        return loadoutSerializer.importFromString(exportText, targetName);
+    }
+}
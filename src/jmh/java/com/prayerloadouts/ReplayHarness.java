@@ -0,0 +1,291 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.gameval.VarbitID;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.game.SkillIconManager;
+import net.runelite.client.plugins.PluginManager;
+import net.runelite.client.plugins.prayer.PrayerPlugin;
+import net.runelite.client.ui.ClientToolbar;
+
+import javax.swing.SwingUtilities;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Replays event traces through {@link PrayerLoadoutsPlugin} against in-memory fakes and reports what each
+ * trace cost: config writes, varbit sets, prayerbook redraws, panel rebuilds and wall time.
+ * <p>
+ * Run with {@code ./gradlew replay}, optionally with {@code -Ptraces=a.trace,b.trace}. Without arguments
+ * the traces bundled under {@code src/jmh/resources/traces} are replayed.
+ * <p>
+ * A trace holds one command per line; blank lines and lines starting with {@code #} are ignored.
+ * Client thread work queued by a command runs before the next command, like the end of a client frame.
+ * <pre>
+ * seed &lt;count&gt;                 write count random loadouts to config, named "Loadout 0" and up
+ * login | logout | hop           game state changes; the prayerbook widget is unloaded until "widget"
+ * tick                           a game tick
+ * widget                         the prayerbook widget loads
+ * varbit &lt;VarbitID name&gt; &lt;value&gt; set a varbit, e.g. varbit PRAYER_FILTER_BLOCKHEALING 1
+ * save | load | delete &lt;name&gt;   panel actions
+ * rename &lt;old&gt; -&gt; &lt;new&gt;
+ * export &lt;name&gt;                  export to an in-memory clipboard
+ * import &lt;name&gt;                  import the in-memory clipboard under a name
+ * reset                          reset the prayerbook to defaults
+ * repeat &lt;n&gt; ... end            repeat the enclosed commands n times
+ * </pre>
+ */
+public final class ReplayHarness {
+    private static final List<String> BUNDLED_TRACES = Arrays.asList(
+            "login-autoload.trace",
+            "preset-swaps.trace",
+            "filter-toggles.trace",
+            "library-edits.trace");
+
+    private final FakeRuneLite fake = new FakeRuneLite();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final EventBus eventBus = new EventBus();
+    private final PrayerLoadoutsPlugin plugin;
+    private final LoadoutManager loadoutManager;
+    private final LoadoutSerializer loadoutSerializer;
+    private final PanelRefreshScheduler refreshScheduler;
+    private final PluginMetrics metrics;
+
+    private String clipboard;
+
+    private ReplayHarness() throws Exception {
+        fake.deferClientThread = true;
+        fake.prayerbookLoaded = false;
+        fake.gameState = GameState.LOGIN_SCREEN;
+
+        Injector injector = Guice.createInjector(binder -> {
+            binder.bind(Client.class).toInstance(fake.client);
+            binder.bind(ClientThread.class).toInstance(fake.clientThread);
+            binder.bind(ConfigManager.class).toInstance(fake.configManager);
+            binder.bind(PluginManager.class).toInstance(fake.pluginManager);
+            binder.bind(PrayerPlugin.class).toInstance(fake.prayerPlugin);
+            binder.bind(ClientToolbar.class).toInstance(mock(ClientToolbar.class));
+            binder.bind(SkillIconManager.class).toInstance(mock(SkillIconManager.class));
+            binder.bind(ScheduledExecutorService.class).toInstance(executor);
+            binder.bind(Gson.class).toInstance(new Gson());
+            binder.bind(PrayerLoadoutsConfig.class).toInstance(new PrayerLoadoutsConfig() { });
+        });
+
+        plugin = injector.getInstance(PrayerLoadoutsPlugin.class);
+        loadoutManager = injector.getInstance(LoadoutManager.class);
+        loadoutSerializer = injector.getInstance(LoadoutSerializer.class);
+        refreshScheduler = injector.getInstance(PanelRefreshScheduler.class);
+        metrics = injector.getInstance(PluginMetrics.class);
+
+        eventBus.register(plugin);
+        fake.eventSink = eventBus::post;
+
+        // The navigation button needs real client resources, so only the panel is set up
+        SwingUtilities.invokeAndWait(() -> refreshScheduler.setPanel(new PrayerLoadoutsPanel(plugin)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> traces = args.length > 0 ? Arrays.asList(args) : BUNDLED_TRACES;
+
+        System.out.printf("%-28s %8s %8s %8s %8s %10s%n",
+                "trace", "config", "varbits", "redraws", "rebuilds", "wall ms");
+        for (String trace : traces) {
+            ReplayHarness harness = new ReplayHarness();
+            try {
+                System.out.println(harness.replay(trace, expand(readTrace(trace))));
+            } finally {
+                harness.executor.shutdownNow();
+            }
+        }
+
+        // The Swing EDT would otherwise keep the JVM alive
+        System.exit(0);
+    }
+
+    private String replay(String trace, List<String> commands) throws Exception {
+        long rebuildsBefore = rebuilds();
+        fake.resetCounters();
+
+        long start = System.nanoTime();
+        for (String command : commands) {
+            run(command);
+            settle();
+        }
+        // Count the deferred loadout writes too
+        loadoutManager.flush();
+        settle();
+        long wallNanos = System.nanoTime() - start;
+
+        return String.format("%-28s %8d %8d %8d %8d %10.2f", trace,
+                fake.configWrites.get(), fake.varbitSets.get(), fake.scriptRuns.get(),
+                rebuilds() - rebuildsBefore, wallNanos / 1e6);
+    }
+
+    private long rebuilds() {
+        return metrics.getHistogram(PluginMetrics.Timer.REBUILD).getCount();
+    }
+
+    private void run(String command) throws Exception {
+        int space = command.indexOf(' ');
+        String verb = space == -1 ? command : command.substring(0, space);
+        String argument = space == -1 ? "" : command.substring(space + 1).trim();
+
+        switch (verb) {
+            case "seed":
+                fake.seedLoadouts(Integer.parseInt(argument), new Random(42));
+                loadoutManager.invalidateCache();
+                break;
+            case "login":
+                setGameState(GameState.LOGGED_IN);
+                break;
+            case "logout":
+                setGameState(GameState.LOGIN_SCREEN);
+                break;
+            case "hop":
+                setGameState(GameState.HOPPING);
+                setGameState(GameState.LOGGED_IN);
+                break;
+            case "tick":
+                eventBus.post(new GameTick());
+                break;
+            case "widget":
+                fake.prayerbookLoaded = true;
+                WidgetLoaded widgetLoaded = new WidgetLoaded();
+                widgetLoaded.setGroupId(InterfaceID.PRAYERBOOK);
+                eventBus.post(widgetLoaded);
+                break;
+            case "varbit":
+                String[] parts = argument.split("\\s+");
+                fake.setVarbit(VarbitID.class.getField(parts[0]).getInt(null), Integer.parseInt(parts[1]));
+                break;
+            case "save":
+                plugin.saveLoadoutFromPanel(argument, null);
+                break;
+            case "load":
+                plugin.loadLoadoutFromPanel(argument, null);
+                break;
+            case "delete":
+                plugin.deleteLoadoutFromPanel(argument, () -> { });
+                break;
+            case "rename":
+                String[] names = argument.split("\\s*->\\s*", 2);
+                plugin.renameLoadoutFromPanel(names[0], names[1], () -> { });
+                break;
+            case "export":
+                clipboard = loadoutSerializer.exportToString(argument);
+                break;
+            case "import":
+                // Same as the panel's import, without the system clipboard
+                if (clipboard != null) {
+                    loadoutSerializer.importFromString(clipboard, argument);
+                }
+                refreshScheduler.requestRefresh();
+                break;
+            case "reset":
+                plugin.resetToDefaultsFromPanel();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown trace command: " + command);
+        }
+    }
+
+    private void setGameState(GameState state) {
+        fake.gameState = state;
+        if (state != GameState.LOGGED_IN) {
+            fake.prayerbookLoaded = false;
+        }
+        GameStateChanged event = new GameStateChanged();
+        event.setGameState(state);
+        eventBus.post(event);
+    }
+
+    /**
+     * Runs queued client thread work and waits for the executor and the EDT, until none of them has
+     * anything left to do. Delayed executor tasks, like the store's write-behind flush, are not waited for.
+     */
+    private void settle() throws Exception {
+        do {
+            fake.runClientThread();
+            executor.submit(() -> { }).get();
+            SwingUtilities.invokeAndWait(() -> { });
+        } while (fake.hasQueuedClientThreadWork());
+    }
+
+    private static List<String> readTrace(String trace) throws IOException {
+        InputStream bundled = ReplayHarness.class.getResourceAsStream("/traces/" + trace);
+        if (bundled == null) {
+            return Files.readAllLines(Paths.get(trace), StandardCharsets.UTF_8);
+        }
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(bundled, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Drops comments and blank lines and unrolls repeat blocks.
+     */
+    static List<String> expand(List<String> lines) {
+        Deque<List<String>> blocks = new ArrayDeque<>();
+        Deque<Integer> counts = new ArrayDeque<>();
+        blocks.push(new ArrayList<>());
+
+        for (String raw : lines) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            if (line.startsWith("repeat ")) {
+                counts.push(Integer.parseInt(line.substring("repeat ".length()).trim()));
+                blocks.push(new ArrayList<>());
+            } else if (line.equals("end")) {
+                if (counts.isEmpty()) {
+                    throw new IllegalArgumentException("'end' without 'repeat'");
+                }
+                List<String> body = blocks.pop();
+                int count = counts.pop();
+                for (int i = 0; i < count; i++) {
+                    blocks.peek().addAll(body);
+                }
+            } else {
+                blocks.peek().add(line);
+            }
+        }
+
+        if (!counts.isEmpty()) {
+            throw new IllegalArgumentException("'repeat' without 'end'");
+        }
+        return blocks.pop();
+    }
+}
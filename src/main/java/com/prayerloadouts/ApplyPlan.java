@@ -0,0 +1,128 @@
+package com.prayerloadouts;
+
+import net.runelite.api.gameval.VarbitID;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precompiled switch of one prayerbook to a loadout: the final Prayer plugin config writes with their
+ * keys already built, and the filter varbit values. Compiled once per loadout so applying it on the
+ * client thread is a replay with no parsing, branching on "DEFAULT" or string building.
+ */
+final class ApplyPlan {
+    /**
+     * Filter varbits, in the order of {@link #getVarbitValue(int)}.
+     */
+    static final int[] FILTER_VARBITS = {
+            VarbitID.PRAYER_FILTER_BLOCKLOWTIER,
+            VarbitID.PRAYER_FILTER_ALLOWCOMBINEDTIER,
+            VarbitID.PRAYER_FILTER_BLOCKHEALING,
+            VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL,
+            VarbitID.PRAYER_FILTER_BLOCKLOCKED,
+            VarbitID.PRAYER_HIDEFILTERBUTTON,
+    };
+
+    private final int prayerbook;
+    private final PrayerLayout layout;
+    private final String orderKey;
+
+    /**
+     * Order value to write, or null to unset the order key and restore the default order.
+     */
+    private final String orderValue;
+
+    /**
+     * Hidden prayer key suffix -> value, used to diff against the live hidden prayers.
+     */
+    private final Map<String, String> hiddenPrayers;
+
+    /**
+     * Hidden prayer key suffix -> full config key.
+     */
+    private final Map<String, String> hiddenKeys;
+
+    /**
+     * Filter varbit values, or null if the loadout has no filters saved for this prayerbook.
+     */
+    private final int[] varbitValues;
+
+    private ApplyPlan(int prayerbook, PrayerLayout layout, String orderValue,
+            Map<String, String> hiddenPrayers, Map<String, String> hiddenKeys, int[] varbitValues) {
+        this.prayerbook = prayerbook;
+        this.layout = layout;
+        this.orderKey = LoadoutManager.PRAYER_ORDER_KEY_PREFIX + prayerbook;
+        this.orderValue = orderValue;
+        this.hiddenPrayers = hiddenPrayers;
+        this.hiddenKeys = hiddenKeys;
+        this.varbitValues = varbitValues;
+    }
+
+    /**
+     * Compiles the plan for one prayerbook of a loadout.
+     * @return The plan, or null if the loadout has no order saved for the prayerbook
+     */
+    static ApplyPlan compile(LoadoutData loadout, int prayerbook) {
+        PrayerLayout layout = loadout.getLayout(prayerbook);
+        if (!layout.hasOrder()) {
+            return null;
+        }
+
+        Map<String, String> hidden = Collections.unmodifiableMap(layout.getHiddenPrayers());
+        Map<String, String> keys = new HashMap<>();
+        for (String prayerKey : hidden.keySet()) {
+            keys.put(prayerKey, hiddenKey(prayerbook, prayerKey));
+        }
+
+        LoadoutData.FilterSettings filters = loadout.getFilters(prayerbook);
+        int[] varbitValues = filters == null ? null : new int[]{
+                filters.getBlockLowTier(),
+                filters.getAllowCombinedTier(),
+                filters.getBlockHealing(),
+                filters.getBlockLackLevel(),
+                filters.getBlockLocked(),
+                filters.getHideFilterButton(),
+        };
+
+        return new ApplyPlan(prayerbook, layout,
+                layout.isDefaultOrder() ? null : layout.getOrderValue(),
+                hidden, Collections.unmodifiableMap(keys), varbitValues);
+    }
+
+    static String hiddenKey(int prayerbook, String prayerKey) {
+        return LoadoutManager.PRAYER_HIDDEN_KEY_PREFIX + prayerbook + prayerKey;
+    }
+
+    int getPrayerbook() {
+        return prayerbook;
+    }
+
+    PrayerLayout getLayout() {
+        return layout;
+    }
+
+    String getOrderKey() {
+        return orderKey;
+    }
+
+    String getOrderValue() {
+        return orderValue;
+    }
+
+    Map<String, String> getHiddenPrayers() {
+        return hiddenPrayers;
+    }
+
+    String getHiddenKey(String prayerKey) {
+        return hiddenKeys.get(prayerKey);
+    }
+
+    boolean hasFilters() {
+        return varbitValues != null;
+    }
+
+    int getVarbitValue(int index) {
+        return varbitValues[index];
+    }
+}
@@ -0,0 +1,85 @@
+package com.prayerloadouts;
+
+import net.runelite.api.Client;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.widgets.Widget;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Runs the login auto-load as soon as the prayerbook is ready, instead of after a fixed delay.
+ * <p>
+ * The prayerbook is ready once a game tick has passed since login (by then the server has sent the
+ * varbits, including the prayerbook) and the prayerbook widget exists. If the widget does not show up
+ * within {@link #TIMEOUT_TICKS}, the auto-load runs anyway. All methods are called on the client thread.
+ */
+@Singleton
+public class AutoLoadTrigger {
+    /**
+     * Ticks to wait for the prayerbook widget before running the auto-load regardless (about 6 seconds).
+     */
+    static final int TIMEOUT_TICKS = 10;
+
+    private final Client client;
+    private final PluginMetrics metrics;
+
+    private Runnable pendingAction;
+    private boolean varbitsReceived;
+    private int ticksWaited;
+    private long armedAt;
+
+    @Inject
+    public AutoLoadTrigger(Client client, PluginMetrics metrics) {
+        this.client = client;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Schedules an action to run once the prayerbook is ready, replacing any action still waiting.
+     */
+    public void arm(Runnable action) {
+        pendingAction = action;
+        varbitsReceived = false;
+        ticksWaited = 0;
+        armedAt = System.nanoTime();
+    }
+
+    /**
+     * Drops the waiting action, e.g. on logout.
+     */
+    public void cancel() {
+        pendingAction = null;
+    }
+
+    public void onGameTick() {
+        if (pendingAction == null) {
+            return;
+        }
+
+        varbitsReceived = true;
+        ticksWaited++;
+        if (isPrayerbookLoaded() || ticksWaited >= TIMEOUT_TICKS) {
+            fire();
+        }
+    }
+
+    public void onWidgetLoaded(int groupId) {
+        if (pendingAction != null && varbitsReceived && groupId == InterfaceID.PRAYERBOOK) {
+            fire();
+        }
+    }
+
+    private boolean isPrayerbookLoaded() {
+        Widget prayerWidget = client.getWidget(InterfaceID.PRAYERBOOK, 0);
+        return prayerWidget != null;
+    }
+
+    private void fire() {
+        Runnable action = pendingAction;
+        pendingAction = null;
+        action.run();
+        // Time from login to the auto-load having run
+        metrics.recordSince(PluginMetrics.Timer.AUTO_LOAD, armedAt);
+    }
+}
@@ -0,0 +1,126 @@
+package com.prayerloadouts;
+
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Measures the wall time of the plugin's client thread tasks and warns about tasks over the configured
+ * budget, with the task name and library size. Work submitted through {@link #runDeferrable} moves to the
+ * background executor instead when it is not expected to fit in the rest of the current tick's budget.
+ * <p>
+ * Nested tasks count towards the outermost one. Task state is only touched on the client thread.
+ */
+@Singleton
+public class ClientThreadWatchdog {
+    private static final Logger log = LoggerFactory.getLogger(ClientThreadWatchdog.class);
+
+    private final Client client;
+    private final ClientThread clientThread;
+    private final ScheduledExecutorService executor;
+    private final PluginMetrics metrics;
+    private final PrayerLoadoutsConfig config;
+    private final LoadoutManager loadoutManager;
+
+    private int depth;
+    private long taskStart;
+
+    /**
+     * Client thread time used by finished tasks since the last game tick, in nanoseconds.
+     */
+    private long tickNanos;
+
+    @Inject
+    public ClientThreadWatchdog(Client client, ClientThread clientThread, ScheduledExecutorService executor,
+            PluginMetrics metrics, PrayerLoadoutsConfig config, LoadoutManager loadoutManager) {
+        this.client = client;
+        this.clientThread = clientThread;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.config = config;
+        this.loadoutManager = loadoutManager;
+    }
+
+    /**
+     * Queues a task on the client thread and measures it when it runs.
+     */
+    public void invokeLater(String name, Runnable task) {
+        clientThread.invokeLater(() -> run(name, task));
+    }
+
+    /**
+     * Runs a task now, measuring it if this is the client thread.
+     */
+    public void run(String name, Runnable task) {
+        if (!client.isClientThread() || depth > 0) {
+            task.run();
+            return;
+        }
+
+        depth++;
+        taskStart = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            depth--;
+            long elapsed = System.nanoTime() - taskStart;
+            tickNanos += elapsed;
+            metrics.record(PluginMetrics.Timer.CLIENT_TASK, elapsed);
+
+            if (elapsed > budgetNanos()) {
+                metrics.increment(PluginMetrics.Counter.BUDGET_OVERRUNS);
+                log.warn("Client thread task '{}' took {} us, over the {} us budget ({} loadouts)",
+                        name, PluginMetrics.micros(elapsed), config.clientThreadBudget(), librarySize());
+            }
+        }
+    }
+
+    /**
+     * Runs non-critical work now, or on the executor if deferring is enabled and the work is not expected
+     * to fit in what is left of the plugin's client thread budget for this tick. The estimate is the p99
+     * of the work's recorded timer; work that has never been timed is assumed to be heavy. The work must
+     * be safe to run on any thread.
+     * @param estimate Timer the work records into, used to predict its cost
+     */
+    public void runDeferrable(String name, PluginMetrics.Timer estimate, Runnable work) {
+        if (config.deferHeavyWork() && client.isClientThread()
+                && usedThisTick() + estimatedNanos(estimate) >= budgetNanos()) {
+            metrics.increment(PluginMetrics.Counter.DEFERRED_TASKS);
+            log.debug("Deferring '{}' to the background, it would exceed the client thread budget", name);
+            executor.execute(work);
+        } else {
+            work.run();
+        }
+    }
+
+    /**
+     * Closes the current tick's client thread total. Called on the client thread every game tick.
+     */
+    public void onGameTick() {
+        metrics.record(PluginMetrics.Timer.CLIENT_TICK, tickNanos);
+        tickNanos = 0;
+    }
+
+    private long usedThisTick() {
+        return depth > 0 ? tickNanos + System.nanoTime() - taskStart : tickNanos;
+    }
+
+    private long estimatedNanos(PluginMetrics.Timer timer) {
+        LatencyHistogram histogram = metrics.getHistogram(timer);
+        return histogram.getCount() == 0 ? budgetNanos() : histogram.getValueAtPercentile(99);
+    }
+
+    private long budgetNanos() {
+        return config.clientThreadBudget() * 1_000L;
+    }
+
+    private String librarySize() {
+        int count = loadoutManager.getCachedLoadoutCount();
+        return count >= 0 ? Integer.toString(count) : "unread";
+    }
+}
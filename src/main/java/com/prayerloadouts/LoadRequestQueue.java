@@ -0,0 +1,103 @@
+package com.prayerloadouts;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.function.Consumer;
+
+/**
+ * Last-writer-wins queue for load requests. Only the newest request is kept; older ones are completed as
+ * {@link LoadResult#SUPERSEDED} without touching config or varbits. The pending request is applied in a
+ * single client thread task, so rapid switching costs one apply instead of one per click.
+ */
+@Singleton
+public class LoadRequestQueue {
+    private final LoadoutManager loadoutManager;
+    private final ClientThreadWatchdog watchdog;
+    private final PanelRefreshScheduler refreshScheduler;
+    private final PluginMetrics metrics;
+
+    /**
+     * Newest request not yet applied, or null. Guarded by this.
+     */
+    private Request pending;
+
+    @Inject
+    public LoadRequestQueue(LoadoutManager loadoutManager, ClientThreadWatchdog watchdog,
+            PanelRefreshScheduler refreshScheduler, PluginMetrics metrics) {
+        this.loadoutManager = loadoutManager;
+        this.watchdog = watchdog;
+        this.refreshScheduler = refreshScheduler;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Requests a loadout to be loaded, replacing any request still pending. Safe to call from any thread.
+     * The loadout is applied to whichever prayerbook is active when the request runs.
+     * @param callback Optional, called with the result on the client thread, or on the caller's thread if the
+     *                 request is superseded straight away
+     */
+    public void submit(String name, Consumer<LoadResult> callback) {
+        Request superseded;
+        synchronized (this) {
+            superseded = pending;
+            pending = new Request(name, callback);
+        }
+
+        if (superseded != null) {
+            metrics.increment(PluginMetrics.Counter.SUPERSEDED_LOADS);
+            superseded.complete(LoadResult.SUPERSEDED);
+        } else {
+            // No drain is queued while a request is pending, the queued one picks up this request
+            watchdog.invokeLater("load", this::drain);
+        }
+    }
+
+    /**
+     * Applies the newest request. Runs on the client thread, where the prayerbook is read live.
+     */
+    private void drain() {
+        Request request;
+        synchronized (this) {
+            request = pending;
+            pending = null;
+        }
+        if (request == null) {
+            return;
+        }
+
+        boolean success = loadoutManager.loadLoadout(request.name, null);
+        refreshScheduler.requestRefresh();
+        request.complete(success ? LoadResult.LOADED : LoadResult.NO_DATA);
+    }
+
+    private static final class Request {
+        private final String name;
+        private final Consumer<LoadResult> callback;
+
+        Request(String name, Consumer<LoadResult> callback) {
+            this.name = name;
+            this.callback = callback;
+        }
+
+        void complete(LoadResult result) {
+            if (callback != null) {
+                callback.accept(result);
+            }
+        }
+    }
+
+    /**
+     * Outcome of a load request.
+     */
+    public enum LoadResult {
+        LOADED,
+        /**
+         * The loadout does not exist or has no data for the current prayerbook.
+         */
+        NO_DATA,
+        /**
+         * A newer request replaced this one before it was applied.
+         */
+        SUPERSEDED
+    }
+}
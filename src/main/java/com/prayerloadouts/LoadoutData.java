@@ -1,34 +1,49 @@
 package com.prayerloadouts;
 
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Data model for a single prayer loadout.
- * Designed for JSON serialization via Gson.
+ * Each prayerbook's order and hidden prayers are held as a compact {@link PrayerLayout}; the JSON form
+ * written by {@link Adapter} is unchanged from the original string-based model.
  */
+@JsonAdapter(LoadoutData.Adapter.class)
 public class LoadoutData {
+    /**
+     * Prayerbooks are stored in small arrays, so ids outside this range cannot be held. Setters ignore them
+     * and {@link Adapter} rejects stored loadouts that use them.
+     */
+    static final int MAX_PRAYERBOOKS = 16;
+
     /**
      * Display name of the loadout (preserves original capitalization).
      */
     String displayName;
 
     /**
-     * Prayer order strings per prayerbook.
-     * Value is "DEFAULT" if using vanilla order, or comma-separated prayer IDs.
+     * Prayer order and hidden prayers, indexed by prayerbook. Entries may be null.
      */
-    Map<Integer, String> prayerOrders = new HashMap<>();
+    private PrayerLayout[] layouts = new PrayerLayout[0];
 
     /**
-     * Filter settings per prayerbook.
+     * Filter settings, indexed by prayerbook. Entries may be null.
      */
-    Map<Integer, FilterSettings> filters = new HashMap<>();
+    private FilterSettings[] filters = new FilterSettings[0];
 
     /**
-     * Hidden prayers per prayerbook.
-     * Maps prayerbook -> (prayer key -> hidden value).
+     * Apply plans indexed by prayerbook, or null until compiled. Dropped whenever the layouts or filters change.
      */
-    Map<Integer, Map<String, String>> hiddenPrayers = new HashMap<>();
+    private volatile ApplyPlan[] applyPlans;
 
     public LoadoutData() {
     }
@@ -37,6 +52,16 @@ public class LoadoutData {
         this.displayName = displayName;
     }
 
+    /**
+     * Copies a loadout so it can be modified without affecting readers of the original.
+     */
+    public LoadoutData(LoadoutData other) {
+        this.displayName = other.displayName;
+        this.layouts = other.layouts.clone();
+        this.filters = other.filters.clone();
+        this.applyPlans = other.applyPlans;
+    }
+
     public String getDisplayName() {
         return displayName;
     }
@@ -45,39 +70,115 @@ public class LoadoutData {
         this.displayName = displayName;
     }
 
+    /**
+     * Number of prayerbook slots; prayerbooks at or above this have no data.
+     */
+    int getPrayerbookCount() {
+        return Math.max(layouts.length, filters.length);
+    }
+
+    static boolean isValidPrayerbook(int prayerbook) {
+        return prayerbook >= 0 && prayerbook < MAX_PRAYERBOOKS;
+    }
+
+    PrayerLayout getLayout(int prayerbook) {
+        PrayerLayout layout = prayerbook >= 0 && prayerbook < layouts.length ? layouts[prayerbook] : null;
+        return layout != null ? layout : PrayerLayout.EMPTY;
+    }
+
+    void setLayout(int prayerbook, PrayerLayout layout) {
+        if (!isValidPrayerbook(prayerbook)) {
+            return;
+        }
+        if (prayerbook >= layouts.length) {
+            layouts = Arrays.copyOf(layouts, prayerbook + 1);
+        }
+        layouts[prayerbook] = layout;
+        applyPlans = null;
+    }
+
+    /**
+     * Gets the precompiled plan for switching a prayerbook to this loadout, compiling the plans if needed.
+     * @return The plan, or null if no order is saved for the prayerbook
+     */
+    ApplyPlan getApplyPlan(int prayerbook) {
+        ApplyPlan[] plans = applyPlans;
+        if (plans == null) {
+            plans = compileApplyPlans();
+        }
+        return prayerbook >= 0 && prayerbook < plans.length ? plans[prayerbook] : null;
+    }
+
+    /**
+     * Compiles the apply plans for every prayerbook. Called when a loadout is saved or imported so the
+     * first load does not pay for it.
+     */
+    ApplyPlan[] compileApplyPlans() {
+        ApplyPlan[] plans = new ApplyPlan[layouts.length];
+        for (int prayerbook = 0; prayerbook < plans.length; prayerbook++) {
+            plans[prayerbook] = ApplyPlan.compile(this, prayerbook);
+        }
+        applyPlans = plans;
+        return plans;
+    }
+
     public String getPrayerOrder(int prayerbook) {
-        return prayerOrders.get(prayerbook);
+        return getLayout(prayerbook).getOrderValue();
     }
 
     public void setPrayerOrder(int prayerbook, String order) {
-        prayerOrders.put(prayerbook, order);
+        setLayout(prayerbook, getLayout(prayerbook).withOrder(order));
     }
 
     public boolean hasPrayerOrder(int prayerbook) {
-        String order = prayerOrders.get(prayerbook);
-        return order != null && !order.isEmpty();
+        return getLayout(prayerbook).hasOrder();
     }
 
     public FilterSettings getFilters(int prayerbook) {
-        return filters.get(prayerbook);
+        return prayerbook >= 0 && prayerbook < filters.length ? filters[prayerbook] : null;
     }
 
     public void setFilters(int prayerbook, FilterSettings filterSettings) {
-        filters.put(prayerbook, filterSettings);
+        if (!isValidPrayerbook(prayerbook)) {
+            return;
+        }
+        if (prayerbook >= filters.length) {
+            filters = Arrays.copyOf(filters, prayerbook + 1);
+        }
+        filters[prayerbook] = filterSettings;
+        applyPlans = null;
     }
 
     public Map<String, String> getHiddenPrayers(int prayerbook) {
-        return hiddenPrayers.getOrDefault(prayerbook, new HashMap<>());
+        return getLayout(prayerbook).getHiddenPrayers();
     }
 
     public void setHiddenPrayers(int prayerbook, Map<String, String> hidden) {
-        hiddenPrayers.put(prayerbook, hidden);
+        setLayout(prayerbook, getLayout(prayerbook).withHiddenPrayers(hidden));
     }
 
     /**
      * Filter settings for a prayerbook.
      */
     public static class FilterSettings {
+        /**
+         * Bits per setting in the packed form. The filter varbits are single bits, so this leaves headroom.
+         */
+        private static final int PACKED_BITS = 4;
+        private static final int PACKED_MASK = (1 << PACKED_BITS) - 1;
+
+        /**
+         * Packed form of settings that are all zero, used when a loadout has no saved filters.
+         */
+        static final int DEFAULT_PACKED = 0;
+
+        /**
+         * Returned by {@link #pack} when a setting does not fit in {@link #PACKED_BITS} bits. Never equal to a
+         * real packed value, which uses only the low 24 bits; such settings must be compared with
+         * {@link #sameSettings} instead.
+         */
+        static final int UNPACKABLE = -1;
+
         int blockLowTier;
         int allowCombinedTier;
         int blockHealing;
@@ -98,9 +199,50 @@ public class LoadoutData {
             this.hideFilterButton = hideFilterButton;
         }
 
-        public String toFingerprint() {
-            return blockLowTier + "," + allowCombinedTier + "," + blockHealing + ","
-                    + blockLackLevel + "," + blockLocked + "," + hideFilterButton;
+        /**
+         * Packs the six settings into one int so comparing filter states is a single int comparison.
+         * @return The packed settings, or {@link #UNPACKABLE} if a setting is out of range
+         */
+        public int toPacked() {
+            return pack(blockLowTier, allowCombinedTier, blockHealing, blockLackLevel, blockLocked, hideFilterButton);
+        }
+
+        static int pack(int blockLowTier, int allowCombinedTier, int blockHealing,
+                        int blockLackLevel, int blockLocked, int hideFilterButton) {
+            // Any bit outside the mask in any setting (including a negative value) would alias another state
+            if (((blockLowTier | allowCombinedTier | blockHealing | blockLackLevel | blockLocked | hideFilterButton)
+                    & ~PACKED_MASK) != 0) {
+                return UNPACKABLE;
+            }
+            return (blockLowTier & PACKED_MASK)
+                    | (allowCombinedTier & PACKED_MASK) << PACKED_BITS
+                    | (blockHealing & PACKED_MASK) << (2 * PACKED_BITS)
+                    | (blockLackLevel & PACKED_MASK) << (3 * PACKED_BITS)
+                    | (blockLocked & PACKED_MASK) << (4 * PACKED_BITS)
+                    | (hideFilterButton & PACKED_MASK) << (5 * PACKED_BITS);
+        }
+
+        /**
+         * Packs filter settings, treating missing settings as all zero.
+         */
+        static int pack(FilterSettings filters) {
+            return filters != null ? filters.toPacked() : DEFAULT_PACKED;
+        }
+
+        /**
+         * Compares two sets of settings value by value, treating null as all zero.
+         */
+        static boolean sameSettings(FilterSettings a, FilterSettings b) {
+            if (a == null || b == null) {
+                FilterSettings other = a != null ? a : b;
+                return other == null || other.toPacked() == DEFAULT_PACKED;
+            }
+            return a.blockLowTier == b.blockLowTier
+                    && a.allowCombinedTier == b.allowCombinedTier
+                    && a.blockHealing == b.blockHealing
+                    && a.blockLackLevel == b.blockLackLevel
+                    && a.blockLocked == b.blockLocked
+                    && a.hideFilterButton == b.hideFilterButton;
         }
 
         public int getBlockLowTier() {
@@ -127,4 +269,198 @@ public class LoadoutData {
             return hideFilterButton;
         }
     }
+
+    /**
+     * Reads and writes the original JSON layout:
+     * {@code {"displayName":..., "prayerOrders":{"0":...}, "filters":{"0":{...}}, "hiddenPrayers":{"0":{...}}}}.
+     */
+    static class Adapter extends TypeAdapter<LoadoutData> {
+        @Override
+        public void write(JsonWriter out, LoadoutData loadout) throws IOException {
+            if (loadout == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            if (loadout.displayName != null) {
+                out.name("displayName").value(loadout.displayName);
+            }
+
+            out.name("prayerOrders").beginObject();
+            for (int prayerbook = 0; prayerbook < loadout.layouts.length; prayerbook++) {
+                String order = loadout.getPrayerOrder(prayerbook);
+                if (order != null) {
+                    out.name(Integer.toString(prayerbook)).value(order);
+                }
+            }
+            out.endObject();
+
+            out.name("filters").beginObject();
+            for (int prayerbook = 0; prayerbook < loadout.filters.length; prayerbook++) {
+                FilterSettings f = loadout.filters[prayerbook];
+                if (f != null) {
+                    out.name(Integer.toString(prayerbook)).beginObject()
+                            .name("blockLowTier").value(f.blockLowTier)
+                            .name("allowCombinedTier").value(f.allowCombinedTier)
+                            .name("blockHealing").value(f.blockHealing)
+                            .name("blockLackLevel").value(f.blockLackLevel)
+                            .name("blockLocked").value(f.blockLocked)
+                            .name("hideFilterButton").value(f.hideFilterButton)
+                            .endObject();
+                }
+            }
+            out.endObject();
+
+            out.name("hiddenPrayers").beginObject();
+            for (int prayerbook = 0; prayerbook < loadout.layouts.length; prayerbook++) {
+                PrayerLayout layout = loadout.layouts[prayerbook];
+                if (layout != null && layout.hasHiddenPrayers()) {
+                    out.name(Integer.toString(prayerbook)).beginObject();
+                    for (Map.Entry<String, String> entry : layout.getHiddenPrayers().entrySet()) {
+                        out.name(entry.getKey()).value(entry.getValue());
+                    }
+                    out.endObject();
+                }
+            }
+            out.endObject();
+
+            out.endObject();
+        }
+
+        @Override
+        public LoadoutData read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            LoadoutData loadout = new LoadoutData();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+
+                switch (field) {
+                    case "displayName":
+                        loadout.displayName = in.nextString();
+                        break;
+                    case "prayerOrders":
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            int prayerbook = readPrayerbook(in);
+                            if (in.peek() == JsonToken.NULL) {
+                                in.nextNull();
+                            } else {
+                                loadout.setPrayerOrder(prayerbook, in.nextString());
+                            }
+                        }
+                        in.endObject();
+                        break;
+                    case "filters":
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            int prayerbook = readPrayerbook(in);
+                            FilterSettings f = readFilters(in);
+                            if (f != null) {
+                                loadout.setFilters(prayerbook, f);
+                            }
+                        }
+                        in.endObject();
+                        break;
+                    case "hiddenPrayers":
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            int prayerbook = readPrayerbook(in);
+                            Map<String, String> hidden = new HashMap<>();
+                            if (in.peek() == JsonToken.NULL) {
+                                in.nextNull();
+                                continue;
+                            }
+                            in.beginObject();
+                            while (in.hasNext()) {
+                                String key = in.nextName();
+                                if (in.peek() == JsonToken.NULL) {
+                                    in.nextNull();
+                                } else {
+                                    hidden.put(key, in.nextString());
+                                }
+                            }
+                            in.endObject();
+                            loadout.setHiddenPrayers(prayerbook, hidden);
+                        }
+                        in.endObject();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return loadout;
+        }
+
+        /**
+         * Reads a prayerbook key. Data for a prayerbook outside the supported range cannot be held, so the
+         * loadout is rejected rather than read with that prayerbook missing.
+         */
+        private static int readPrayerbook(JsonReader in) throws IOException {
+            String key = in.nextName();
+            int prayerbook;
+            try {
+                prayerbook = Integer.parseInt(key);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException("Invalid prayerbook '" + key + "' at " + in.getPath(), e);
+            }
+            if (!isValidPrayerbook(prayerbook)) {
+                throw new JsonParseException("Prayerbook " + prayerbook + " is not supported at " + in.getPath());
+            }
+            return prayerbook;
+        }
+
+        private static FilterSettings readFilters(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            FilterSettings f = new FilterSettings();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "blockLowTier":
+                        f.blockLowTier = in.nextInt();
+                        break;
+                    case "allowCombinedTier":
+                        f.allowCombinedTier = in.nextInt();
+                        break;
+                    case "blockHealing":
+                        f.blockHealing = in.nextInt();
+                        break;
+                    case "blockLackLevel":
+                        f.blockLackLevel = in.nextInt();
+                        break;
+                    case "blockLocked":
+                        f.blockLocked = in.nextInt();
+                        break;
+                    case "hideFilterButton":
+                        f.hideFilterButton = in.nextInt();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return f;
+        }
+    }
 }
@@ -0,0 +1,244 @@
+package com.prayerloadouts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup from a prayerbook state fingerprint to the loadouts saved with that state.
+ * Active detection is a single hash of the live state plus a lookup.
+ * <p>
+ * Each prayerbook's fingerprints are split over a fixed number of shards. Adding or removing a loadout
+ * copies only the shards its fingerprints fall in, so a save costs a fraction of the library instead of
+ * re-indexing it.
+ */
+final class LoadoutIndex {
+    private static final int SHARD_BITS = 8;
+    private static final int SHARD_COUNT = 1 << SHARD_BITS;
+
+    /**
+     * Maps prayerbook -> shards, each mapping fingerprint -> entries in loadout order.
+     */
+    private final Map<Integer, Map<Long, List<Entry>>[]> entries;
+
+    /**
+     * Sequence given to the next loadout added at the end of the library.
+     */
+    private final long nextSequence;
+
+    private LoadoutIndex(Map<Integer, Map<Long, List<Entry>>[]> entries, long nextSequence) {
+        this.entries = entries;
+        this.nextSequence = nextSequence;
+    }
+
+    static LoadoutIndex build(Map<String, LoadoutData> loadouts) {
+        Map<Integer, Map<Long, List<Entry>>[]> entries = new HashMap<>();
+        long sequence = 0;
+        for (Map.Entry<String, LoadoutData> loadout : loadouts.entrySet()) {
+            addEntries(entries, loadout.getKey(), loadout.getValue(), sequence++, false);
+        }
+        return new LoadoutIndex(entries, sequence);
+    }
+
+    /**
+     * Returns an index with a loadout added or replaced. A replaced loadout keeps its place in loadout
+     * order, like {@link java.util.LinkedHashMap#put} does; a new one goes last.
+     * @param previous Loadout currently indexed under {@code name}, or null if there is none
+     */
+    LoadoutIndex with(String name, LoadoutData previous, LoadoutData loadout) {
+        Map<Integer, Map<Long, List<Entry>>[]> updated = new HashMap<>(entries);
+        long sequence = nextSequence;
+        if (previous != null) {
+            long existing = removeEntries(updated, name, previous);
+            if (existing >= 0) {
+                sequence = existing;
+            }
+        }
+        addEntries(updated, name, loadout, sequence, true);
+        return new LoadoutIndex(updated, sequence == nextSequence ? nextSequence + 1 : nextSequence);
+    }
+
+    /**
+     * Returns an index without a loadout.
+     * @param loadout Loadout currently indexed under {@code name}
+     */
+    LoadoutIndex without(String name, LoadoutData loadout) {
+        Map<Integer, Map<Long, List<Entry>>[]> updated = new HashMap<>(entries);
+        removeEntries(updated, name, loadout);
+        return new LoadoutIndex(updated, nextSequence);
+    }
+
+    /**
+     * Finds the loadout matching the given prayerbook state.
+     * @param layout Live prayer order and hidden prayers
+     * @param packedFilters Live filter settings, see {@link LoadoutData.FilterSettings#toPacked()}
+     * @param unpackedFilters Live filter settings if they cannot be packed, otherwise null
+     * @param preferred Name to return if it matches (the last loaded loadout), may be null
+     * @return Matching loadout name, or null if none match
+     */
+    String findMatch(int prayerbook, PrayerLayout layout, int packedFilters,
+            LoadoutData.FilterSettings unpackedFilters, String preferred) {
+        Map<Long, List<Entry>>[] shards = entries.get(prayerbook);
+        if (shards == null) {
+            return null;
+        }
+
+        long fingerprint = fingerprint(layout, packedFilters);
+        Map<Long, List<Entry>> shard = shards[shardOf(fingerprint)];
+        if (shard == null) {
+            return null;
+        }
+
+        String firstMatch = null;
+        for (Entry candidate : shard.getOrDefault(fingerprint, Collections.emptyList())) {
+            if (!candidate.matches(layout, packedFilters, unpackedFilters)) {
+                continue;
+            }
+            if (candidate.name.equals(preferred)) {
+                return candidate.name;
+            }
+            if (firstMatch == null) {
+                firstMatch = candidate.name;
+            }
+        }
+        return firstMatch;
+    }
+
+    /**
+     * Combines the layout fingerprint with the packed filter settings into a single 64-bit fingerprint.
+     */
+    static long fingerprint(PrayerLayout layout, int packedFilters) {
+        long hash = layout.fingerprint() ^ packedFilters;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Adds a loadout's entries.
+     * @param copy Whether the shards and buckets touched are shared with another index and must be copied
+     */
+    private static void addEntries(Map<Integer, Map<Long, List<Entry>>[]> entries, String name,
+            LoadoutData data, long sequence, boolean copy) {
+        for (int prayerbook = 0; prayerbook < data.getPrayerbookCount(); prayerbook++) {
+            PrayerLayout layout = data.getLayout(prayerbook);
+            if (!layout.hasOrder()) {
+                continue;
+            }
+
+            Entry entry = new Entry(name, layout, data.getFilters(prayerbook), sequence);
+            Map<Long, List<Entry>> shard = writableShard(entries, prayerbook, shardOf(entry.fingerprint), copy);
+            List<Entry> bucket = shard.get(entry.fingerprint);
+            bucket = bucket == null ? new ArrayList<>(1) : copy ? new ArrayList<>(bucket) : bucket;
+
+            // Keep loadout order, so the first match does not depend on how the index was built
+            int position = bucket.size();
+            while (position > 0 && bucket.get(position - 1).sequence > sequence) {
+                position--;
+            }
+            bucket.add(position, entry);
+            shard.put(entry.fingerprint, bucket);
+        }
+    }
+
+    /**
+     * Removes a loadout's entries, copying what it touches.
+     * @return The loadout's sequence, or -1 if it had no entries
+     */
+    private static long removeEntries(Map<Integer, Map<Long, List<Entry>>[]> entries, String name,
+            LoadoutData data) {
+        long sequence = -1;
+        for (int prayerbook = 0; prayerbook < data.getPrayerbookCount(); prayerbook++) {
+            PrayerLayout layout = data.getLayout(prayerbook);
+            if (!layout.hasOrder() || !entries.containsKey(prayerbook)) {
+                continue;
+            }
+
+            long fingerprint = fingerprint(layout, LoadoutData.FilterSettings.pack(data.getFilters(prayerbook)));
+            Map<Long, List<Entry>> shard = entries.get(prayerbook)[shardOf(fingerprint)];
+            if (shard == null || !shard.containsKey(fingerprint)) {
+                continue;
+            }
+
+            List<Entry> bucket = new ArrayList<>(shard.get(fingerprint));
+            for (int i = 0; i < bucket.size(); i++) {
+                if (bucket.get(i).name.equals(name)) {
+                    sequence = bucket.remove(i).sequence;
+                    break;
+                }
+            }
+
+            shard = writableShard(entries, prayerbook, shardOf(fingerprint), true);
+            if (bucket.isEmpty()) {
+                shard.remove(fingerprint);
+            } else {
+                shard.put(fingerprint, bucket);
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Gets a shard that may be modified, copying the prayerbook's shard array and the shard itself if
+     * they are shared.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Long, List<Entry>> writableShard(Map<Integer, Map<Long, List<Entry>>[]> entries,
+            int prayerbook, int index, boolean copy) {
+        Map<Long, List<Entry>>[] shards = entries.get(prayerbook);
+        if (shards == null) {
+            shards = new Map[SHARD_COUNT];
+        } else if (copy) {
+            shards = shards.clone();
+        }
+        entries.put(prayerbook, shards);
+
+        Map<Long, List<Entry>> shard = shards[index];
+        if (shard == null) {
+            shard = new HashMap<>();
+        } else if (copy) {
+            shard = new HashMap<>(shard);
+        }
+        shards[index] = shard;
+        return shard;
+    }
+
+    private static int shardOf(long fingerprint) {
+        return (int) (fingerprint >>> (Long.SIZE - SHARD_BITS));
+    }
+
+    private static final class Entry {
+        final String name;
+        final PrayerLayout layout;
+        final int packedFilters;
+
+        /**
+         * Saved filter settings if they cannot be packed, otherwise null.
+         */
+        final LoadoutData.FilterSettings unpackedFilters;
+        final long fingerprint;
+
+        /**
+         * Position of the loadout in loadout order, used to keep buckets ordered.
+         */
+        final long sequence;
+
+        Entry(String name, PrayerLayout layout, LoadoutData.FilterSettings filters, long sequence) {
+            this.name = name;
+            this.layout = layout;
+            this.packedFilters = LoadoutData.FilterSettings.pack(filters);
+            this.unpackedFilters = packedFilters == LoadoutData.FilterSettings.UNPACKABLE ? filters : null;
+            this.fingerprint = LoadoutIndex.fingerprint(layout, packedFilters);
+            this.sequence = sequence;
+        }
+
+        boolean matches(PrayerLayout layout, int packedFilters, LoadoutData.FilterSettings unpackedFilters) {
+            if (this.packedFilters != packedFilters || !this.layout.sameArrangement(layout)) {
+                return false;
+            }
+            return packedFilters != LoadoutData.FilterSettings.UNPACKABLE
+                    || LoadoutData.FilterSettings.sameSettings(this.unpackedFilters, unpackedFilters);
+        }
+    }
+}
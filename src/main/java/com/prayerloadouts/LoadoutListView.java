@@ -0,0 +1,300 @@
+package com.prayerloadouts;
+
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+
+import javax.swing.AbstractListModel;
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Virtualized loadout list for large libraries.
+ * A single renderer component is stamped for each visible row, so memory and layout cost stay
+ * constant no matter how many loadouts exist. Button clicks are resolved by hit-testing the renderer.
+ */
+class LoadoutListView extends JList<String> {
+    private static final int ROW_GAP = 5;
+
+    private final LoadoutListModel model = new LoadoutListModel();
+    private final CardRenderer renderer = new CardRenderer();
+    private final BiConsumer<PrayerLoadoutsPanel.CardAction, String> actionHandler;
+    private final Predicate<String> busy;
+
+    private String activeLoadout;
+    private int hoveredIndex = -1;
+
+    LoadoutListView(BiConsumer<PrayerLoadoutsPanel.CardAction, String> actionHandler, Predicate<String> busy) {
+        this.actionHandler = actionHandler;
+        this.busy = busy;
+
+        setModel(model);
+        setCellRenderer(renderer);
+        setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        setFocusable(false);
+        setBackground(ColorScheme.DARK_GRAY_COLOR);
+        setBorder(new EmptyBorder(5, 10, 5, 10));
+
+        // Fixed row size lets JList lay out any number of rows without measuring them
+        setFixedCellHeight(renderer.getPreferredSize().height);
+        setFixedCellWidth(1);
+
+        // Enables per-button tooltips through getToolTipText(MouseEvent)
+        setToolTipText("");
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) {
+                    return;
+                }
+                int index = rowAt(e.getPoint());
+                if (index == -1) {
+                    return;
+                }
+                JButton button = buttonAt(index, e.getPoint());
+                if (button != null) {
+                    actionHandler.accept(renderer.actionFor(button), model.getElementAt(index));
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHoveredIndex(rowAt(e.getPoint()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHoveredIndex(-1);
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+    }
+
+    /**
+     * Updates the shown loadouts and active highlight, repainting only what changed.
+     */
+    void update(Collection<String> loadoutNames, String activeLoadout) {
+        model.setNames(loadoutNames);
+
+        String previousActive = this.activeLoadout;
+        this.activeLoadout = activeLoadout;
+        if (previousActive != null && !previousActive.equals(activeLoadout)) {
+            repaintRow(model.indexOf(previousActive));
+        }
+        if (activeLoadout != null && !activeLoadout.equals(previousActive)) {
+            repaintRow(model.indexOf(activeLoadout));
+        }
+    }
+
+    /**
+     * Repaints a loadout's row, e.g. after it becomes busy or idle.
+     */
+    void repaintLoadout(String name) {
+        repaintRow(model.indexOf(name));
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int index = rowAt(e.getPoint());
+        if (index == -1) {
+            return null;
+        }
+        JButton button = buttonAt(index, e.getPoint());
+        return button != null ? button.getToolTipText() : null;
+    }
+
+    private int rowAt(Point point) {
+        int index = locationToIndex(point);
+        if (index == -1) {
+            return -1;
+        }
+        Rectangle bounds = getCellBounds(index, index);
+        return bounds != null && bounds.contains(point) ? index : -1;
+    }
+
+    /**
+     * Lays out the renderer for the given row and finds the button under the point.
+     */
+    private JButton buttonAt(int index, Point point) {
+        Rectangle bounds = getCellBounds(index, index);
+        Component cell = renderer.getListCellRendererComponent(
+                this, model.getElementAt(index), index, false, false);
+        cell.setBounds(bounds);
+        layoutTree(cell);
+
+        Component hit = SwingUtilities.getDeepestComponentAt(cell, point.x - bounds.x, point.y - bounds.y);
+        return hit instanceof JButton ? (JButton) hit : null;
+    }
+
+    private static void layoutTree(Component component) {
+        component.doLayout();
+        if (component instanceof Container) {
+            for (Component child : ((Container) component).getComponents()) {
+                layoutTree(child);
+            }
+        }
+    }
+
+    private void setHoveredIndex(int index) {
+        if (hoveredIndex == index) {
+            return;
+        }
+        int previous = hoveredIndex;
+        hoveredIndex = index;
+        repaintRow(previous);
+        repaintRow(index);
+    }
+
+    private void repaintRow(int index) {
+        if (index < 0 || index >= model.getSize()) {
+            return;
+        }
+        Rectangle bounds = getCellBounds(index, index);
+        if (bounds != null) {
+            repaint(bounds);
+        }
+    }
+
+    /**
+     * List model backed by a plain list of names, firing only the size and content events needed.
+     */
+    private static final class LoadoutListModel extends AbstractListModel<String> {
+        private List<String> names = new ArrayList<>();
+
+        @Override
+        public int getSize() {
+            return names.size();
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return names.get(index);
+        }
+
+        int indexOf(String name) {
+            return names.indexOf(name);
+        }
+
+        void setNames(Collection<String> loadoutNames) {
+            List<String> updated = new ArrayList<>(loadoutNames);
+            if (updated.equals(names)) {
+                return;
+            }
+
+            int oldSize = names.size();
+            int newSize = updated.size();
+            names = updated;
+
+            if (newSize < oldSize) {
+                fireIntervalRemoved(this, newSize, oldSize - 1);
+            } else if (newSize > oldSize) {
+                fireIntervalAdded(this, oldSize, newSize - 1);
+            }
+            if (Math.min(oldSize, newSize) > 0) {
+                fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+            }
+        }
+    }
+
+    /**
+     * Renders a row to look like a loadout card. The same component is reused for every row.
+     */
+    private final class CardRenderer extends JPanel implements ListCellRenderer<String> {
+        private final JPanel card = new JPanel();
+        private final JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 3, 0));
+        private final JLabel nameLabel = new JLabel();
+        private final JButton loadButton = new JButton("Load");
+        private final JButton exportButton = new JButton("📋");
+        private final JButton renameButton = new JButton("✏");
+        private final JButton deleteButton = new JButton("🗑");
+
+        CardRenderer() {
+            super(new BorderLayout());
+            setOpaque(false);
+            setBorder(new EmptyBorder(0, 0, ROW_GAP, 0));
+
+            card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
+            card.setBorder(new EmptyBorder(8, 10, 8, 10));
+
+            nameLabel.setFont(FontManager.getRunescapeFont());
+            nameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+            card.add(nameLabel);
+
+            card.add(Box.createRigidArea(new Dimension(0, 5)));
+
+            buttonsPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            loadButton.setBackground(ColorScheme.BRAND_ORANGE);
+            loadButton.setToolTipText("Load this prayer arrangement");
+            buttonsPanel.add(loadButton);
+
+            exportButton.setToolTipText("Copy to clipboard");
+            buttonsPanel.add(exportButton);
+
+            renameButton.setToolTipText("Rename this loadout");
+            buttonsPanel.add(renameButton);
+
+            deleteButton.setForeground(ColorScheme.PROGRESS_ERROR_COLOR);
+            deleteButton.setToolTipText("Delete this loadout");
+            buttonsPanel.add(deleteButton);
+
+            card.add(buttonsPanel);
+            add(card, BorderLayout.CENTER);
+        }
+
+        PrayerLoadoutsPanel.CardAction actionFor(JButton button) {
+            if (button == loadButton) {
+                return PrayerLoadoutsPanel.CardAction.LOAD;
+            } else if (button == exportButton) {
+                return PrayerLoadoutsPanel.CardAction.EXPORT;
+            } else if (button == renameButton) {
+                return PrayerLoadoutsPanel.CardAction.RENAME;
+            }
+            return PrayerLoadoutsPanel.CardAction.DELETE;
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends String> list, String name, int index,
+                boolean isSelected, boolean cellHasFocus) {
+            boolean active = name.equals(activeLoadout);
+            boolean hovered = index == hoveredIndex;
+            boolean rowBusy = busy.test(name);
+
+            nameLabel.setText(PrayerLoadoutsPanel.cardLabel(name, active, rowBusy));
+            nameLabel.setForeground(PrayerLoadoutsPanel.cardLabelColor(active, rowBusy));
+            for (Component button : buttonsPanel.getComponents()) {
+                button.setEnabled(!rowBusy);
+            }
+
+            Color color = PrayerLoadoutsPanel.cardColor(active, hovered);
+            card.setBackground(color);
+            buttonsPanel.setBackground(color);
+            return this;
+        }
+    }
+}
@@ -1,22 +1,24 @@
 package com.prayerloadouts;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.gameval.VarbitID;
-import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.lang.reflect.Type;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Manages loadout operations: save, load, delete, rename, and active detection.
- * All loadouts are stored in a single JSON config key.
+ * Loadouts are decoded from the {@link LoadoutStore} once and kept in memory as an immutable
+ * {@link LoadoutSnapshot}; changes publish a new snapshot and are written back one loadout at a time.
  */
 @Singleton
 public class LoadoutManager {
@@ -24,75 +26,214 @@ public class LoadoutManager {
     static final String PRAYER_CONFIG_GROUP = "prayer";
     static final String PRAYER_ORDER_KEY_PREFIX = "prayer_order_book_";
     static final String PRAYER_HIDDEN_KEY_PREFIX = "prayer_hidden_book_";
-    private static final String LOADOUTS_KEY = "loadouts";
     static final String LAST_LOADOUT_KEY = "last_loadout";
 
-    private static final Type LOADOUTS_TYPE = new TypeToken<Map<String, LoadoutData>>() {}.getType();
-
     private final Client client;
-    private final ConfigManager configManager;
     private final PrayerStateManager prayerStateManager;
-    private final Gson gson;
+    private final LoadoutStore loadoutStore;
+    private final PluginMetrics metrics;
+    private final ScheduledExecutorService executor;
 
-    private volatile String cachedFilterFingerprint = "";
-    private volatile int cachedPrayerbook = 0;
+    /**
+     * Current library and live prayerbook state. Snapshots are never mutated; every change publishes a
+     * new one, so readers need no locks. Library writers are serialized by this manager's lock.
+     */
+    private final AtomicReference<LoadoutSnapshot> snapshot = new AtomicReference<>(LoadoutSnapshot.EMPTY);
+
+    /**
+     * Saves captured on the client thread and not yet published, by name.
+     */
+    private final Map<String, LoadoutData> pendingSaves = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every profile switch, so saves captured for the previous profile are not committed
+     * to the new one. Written under this manager's lock.
+     */
+    private volatile int profileGeneration;
 
     @Inject
-    public LoadoutManager(Client client, ConfigManager configManager,
-            PrayerStateManager prayerStateManager, Gson gson) {
+    public LoadoutManager(Client client, PrayerStateManager prayerStateManager, LoadoutStore loadoutStore,
+            PluginMetrics metrics, ScheduledExecutorService executor) {
         this.client = client;
-        this.configManager = configManager;
         this.prayerStateManager = prayerStateManager;
-        this.gson = gson;
+        this.loadoutStore = loadoutStore;
+        this.metrics = metrics;
+        this.executor = executor;
     }
 
+    /**
+     * Captures the live prayerbook, layout and filter settings used for active detection. All are published
+     * together, so detection never pairs one prayerbook with another's layout or filters.
+     */
     public void updateCachedFilters() {
         int prayerbook = client.getVarbitValue(VarbitID.PRAYERBOOK);
-        cachedPrayerbook = prayerbook;
-        cachedFilterFingerprint = getCurrentFilterFingerprint();
+        PrayerLayout layout = prayerStateManager.getCurrentLayout(prayerbook);
+        int packedFilters = getCurrentPackedFilters();
+
+        // Settings that do not fit the packed form are kept whole so detection can compare them directly
+        LoadoutData.FilterSettings unpackedFilters =
+                packedFilters == LoadoutData.FilterSettings.UNPACKABLE ? getCurrentFilters() : null;
+
+        LoadoutSnapshot current;
+        do {
+            current = snapshot.get();
+        } while (!snapshot.compareAndSet(current,
+                current.withLiveState(prayerbook, layout, packedFilters, unpackedFilters)));
+    }
+
+    /**
+     * Re-captures the live layout of the captured prayerbook after the Prayer plugin's config changed.
+     * Reads no varbits, so it is safe to call from any thread.
+     * @return true if the layout changed
+     */
+    public boolean updateCachedLayout() {
+        LoadoutSnapshot current;
+        LoadoutSnapshot updated;
+        do {
+            current = snapshot.get();
+            if (current.getLayout() == null) {
+                // Nothing captured yet; the next updateCachedFilters reads the layout too
+                return false;
+            }
+            updated = current.withLayout(prayerStateManager.getCurrentLayout(current.getPrayerbook()));
+        } while (!snapshot.compareAndSet(current, updated));
+        return updated != current;
+    }
+
+    private int getCurrentPackedFilters() {
+        return LoadoutData.FilterSettings.pack(
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLOWTIER),
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_ALLOWCOMBINEDTIER),
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKHEALING),
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL),
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLOCKED),
+                client.getVarbitValue(VarbitID.PRAYER_HIDEFILTERBUTTON));
     }
 
-    private String getCurrentFilterFingerprint() {
-        return client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLOWTIER) + ","
-                + client.getVarbitValue(VarbitID.PRAYER_FILTER_ALLOWCOMBINEDTIER) + ","
-                + client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKHEALING) + ","
-                + client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL) + ","
-                + client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLOCKED) + ","
-                + client.getVarbitValue(VarbitID.PRAYER_HIDEFILTERBUTTON);
+    private LoadoutData.FilterSettings getCurrentFilters() {
+        return new LoadoutData.FilterSettings(
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLOWTIER),
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_ALLOWCOMBINEDTIER),
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKHEALING),
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL),
+                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLOCKED),
+                client.getVarbitValue(VarbitID.PRAYER_HIDEFILTERBUTTON));
     }
 
     /**
-     * Gets all loadouts from config.
+     * Gets all loadouts. The returned map is read-only and is decoded from config at most once
+     * until the stored data changes outside this manager.
      */
     public Map<String, LoadoutData> getAllLoadouts() {
-        String json = configManager.getConfiguration(CONFIG_GROUP, LOADOUTS_KEY);
-        if (json == null || json.isEmpty()) {
-            return new HashMap<>();
-        }
-        try {
-            Map<String, LoadoutData> loadouts = gson.fromJson(json, LOADOUTS_TYPE);
-            return loadouts != null ? loadouts : new HashMap<>();
-        } catch (Exception e) {
-            return new HashMap<>();
+        return loadedSnapshot().getLoadouts();
+    }
+
+    /**
+     * Gets the current snapshot, reading the library from config first if needed.
+     */
+    private LoadoutSnapshot loadedSnapshot() {
+        LoadoutSnapshot current = snapshot.get();
+        return current.hasLibrary() ? current : loadAllLoadouts();
+    }
+
+    private synchronized LoadoutSnapshot loadAllLoadouts() {
+        LoadoutSnapshot current = snapshot.get();
+        if (current.hasLibrary()) {
+            return current;
         }
+
+        long start = System.nanoTime();
+        Map<String, LoadoutData> loadouts = loadoutStore.readAll();
+        LoadoutSnapshot loaded = publishLoadouts(loadouts, LoadoutIndex.build(loadouts));
+        metrics.recordSince(PluginMetrics.Timer.PARSE, start);
+        return loaded;
     }
 
     /**
-     * Saves all loadouts to config.
+     * Returns a mutable copy of the given loadouts for a writer to modify and publish.
      */
-    private void saveAllLoadouts(Map<String, LoadoutData> loadouts) {
-        if (loadouts.isEmpty()) {
-            configManager.unsetConfiguration(CONFIG_GROUP, LOADOUTS_KEY);
-        } else {
-            String json = gson.toJson(loadouts, LOADOUTS_TYPE);
-            configManager.setConfiguration(CONFIG_GROUP, LOADOUTS_KEY, json);
+    private static Map<String, LoadoutData> copyLoadouts(LoadoutSnapshot library) {
+        return new LinkedHashMap<>(library.getLoadouts());
+    }
+
+    /**
+     * Publishes a new set of loadouts to readers, keeping the live state of the current snapshot.
+     * Callers hold this manager's lock and persist the affected loadouts themselves.
+     * @param index Index of {@code updated}, usually derived from the previous index for the loadouts changed
+     * @return The published snapshot
+     */
+    private LoadoutSnapshot publishLoadouts(Map<String, LoadoutData> updated, LoadoutIndex index) {
+        Map<String, LoadoutData> published = Collections.unmodifiableMap(updated);
+
+        LoadoutSnapshot current;
+        LoadoutSnapshot next;
+        do {
+            current = snapshot.get();
+            next = current.withLibrary(published, index);
+        } while (!snapshot.compareAndSet(current, next));
+        return next;
+    }
+
+    /**
+     * Drops the decoded loadouts so the next read goes back to config.
+     */
+    public void invalidateCache() {
+        metrics.increment(PluginMetrics.Counter.CACHE_INVALIDATIONS);
+
+        LoadoutSnapshot current;
+        do {
+            current = snapshot.get();
+        } while (!snapshot.compareAndSet(current, current.withoutLibrary()));
+    }
+
+    /**
+     * Writes any pending loadout changes to config now.
+     */
+    public void flush() {
+        loadoutStore.flush();
+    }
+
+    /**
+     * Drops the loadouts of the previous profile. Their pending changes were flushed on the ConfigSync
+     * posted before the switch; anything staged after that cannot be written to the old profile any more.
+     */
+    public synchronized void onProfileChanged() {
+        profileGeneration++;
+        pendingSaves.clear();
+        loadoutStore.discardPending();
+        invalidateCache();
+    }
+
+    /**
+     * Keeps the in-memory loadouts coherent with edits made outside this manager.
+     * @return true if the cached loadouts were dropped
+     */
+    public boolean onConfigChanged(ConfigChanged event) {
+        if (!CONFIG_GROUP.equals(event.getGroup()) || !LoadoutStore.isLoadoutKey(event.getKey())) {
+            return false;
         }
+
+        // Our own writes are already reflected in memory
+        if (!snapshot.get().hasLibrary() || loadoutStore.isOwnWrite(event.getKey(), event.getNewValue())) {
+            return false;
+        }
+
+        // Keep local changes that have not been written yet, then re-read everything
+        loadoutStore.flush();
+        invalidateCache();
+        return true;
     }
 
     /**
      * Gets a single loadout by name.
      */
     public LoadoutData getLoadout(String name) {
+        if (!pendingSaves.isEmpty()) {
+            LoadoutData pending = pendingSaves.get(name);
+            if (pending != null) {
+                return pending;
+            }
+        }
         return getAllLoadouts().get(name);
     }
 
@@ -100,54 +241,73 @@ public class LoadoutManager {
         return getAllLoadouts().keySet();
     }
 
-    String toSafeKey(String name) {
-        if (name == null) {
-            return "";
-        }
-        return name.toLowerCase().replaceAll("[^a-z0-9]", "_");
+    /**
+     * Number of decoded loadouts, or -1 if they have not been read from config yet. Never reads config.
+     */
+    public int getCachedLoadoutCount() {
+        Map<String, LoadoutData> current = snapshot.get().getLoadouts();
+        return current != null ? current.size() : -1;
     }
 
-    public void saveLoadout(String name) {
+    /**
+     * Saves the current arrangement of the current prayerbook under a name. Must be called on the client
+     * thread, which only captures the order, hidden prayers and filters. The loadout is published and
+     * persisted on the executor, in order with other background writes; until then {@link #getLoadout}
+     * already returns the saved data, so a load straight after a save sees it.
+     * @param onSaved Optional callback to run once the loadout is published (on the executor)
+     * @return true if the save was captured, false if not logged in, the Prayer plugin is disabled or the
+     *         name is empty, in which case {@code onSaved} is not called
+     */
+    public boolean saveLoadout(String name, Runnable onSaved) {
         if (client.getGameState() != GameState.LOGGED_IN || !prayerStateManager.isPrayerPluginEnabled()
                 || name == null || name.trim().isEmpty()) {
-            return;
+            return false;
         }
 
+        long start = System.nanoTime();
+        int generation = profileGeneration;
         int prayerbook = client.getVarbitValue(VarbitID.PRAYERBOOK);
 
-        // Get or create loadout data
-        Map<String, LoadoutData> loadouts = getAllLoadouts();
-        LoadoutData loadout = loadouts.getOrDefault(name, new LoadoutData(name));
+        // Get or create loadout data (copied so readers never see a half-updated loadout)
+        LoadoutData existing = getLoadout(name);
+        LoadoutData loadout = existing != null ? new LoadoutData(existing) : new LoadoutData(name);
         loadout.setDisplayName(name);
 
-        // Save prayer order
-        String currentOrder = configManager.getConfiguration(
-                PRAYER_CONFIG_GROUP,
-                PRAYER_ORDER_KEY_PREFIX + prayerbook);
-        String orderValue = (currentOrder == null || currentOrder.isEmpty()) ? "DEFAULT" : currentOrder;
-        loadout.setPrayerOrder(prayerbook, orderValue);
+        // Save prayer order and hidden prayers
+        loadout.setLayout(prayerbook, prayerStateManager.getCurrentLayout(prayerbook));
 
         // Save filter settings
-        LoadoutData.FilterSettings filters = new LoadoutData.FilterSettings(
-                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLOWTIER),
-                client.getVarbitValue(VarbitID.PRAYER_FILTER_ALLOWCOMBINEDTIER),
-                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKHEALING),
-                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL),
-                client.getVarbitValue(VarbitID.PRAYER_FILTER_BLOCKLOCKED),
-                client.getVarbitValue(VarbitID.PRAYER_HIDEFILTERBUTTON)
-        );
-        loadout.setFilters(prayerbook, filters);
+        loadout.setFilters(prayerbook, getCurrentFilters());
+        pendingSaves.put(name, loadout);
+
+        // Update last loaded loadout now, so it stays ordered with loads that follow
+        loadoutStore.setLastLoadoutName(name);
+        metrics.recordSince(PluginMetrics.Timer.SAVE, start);
+
+        executor.execute(() -> {
+            commitSave(name, loadout, generation);
+            if (onSaved != null) {
+                onSaved.run();
+            }
+        });
+        return true;
+    }
 
-        // Save hidden prayers
-        Map<String, String> hiddenPrayers = prayerStateManager.getCurrentHiddenPrayers(prayerbook);
-        loadout.setHiddenPrayers(prayerbook, hiddenPrayers);
+    /**
+     * Publishes and persists a loadout captured by {@link #saveLoadout}, unless the profile it was captured
+     * for has been switched away from since.
+     */
+    private synchronized void commitSave(String name, LoadoutData loadout, int generation) {
+        if (generation != profileGeneration) {
+            return;
+        }
 
-        // Save to config
-        loadouts.put(name, loadout);
-        saveAllLoadouts(loadouts);
+        loadout.compileApplyPlans();
+        putLoadout(name, loadout);
+        loadoutStore.save(name, loadout);
 
-        // Update last loaded loadout
-        configManager.setConfiguration(CONFIG_GROUP, LAST_LOADOUT_KEY, name);
+        // A later save of the same name keeps its own entry
+        pendingSaves.remove(name, loadout);
     }
 
     /**
@@ -159,7 +319,8 @@ public class LoadoutManager {
     }
 
     /**
-     * Loads a loadout by name with an optional completion callback.
+     * Loads a loadout by name with an optional completion callback. Must be called on the client thread;
+     * the loadout's precompiled plan is applied immediately.
      * @param name Loadout name to load
      * @param onComplete Optional callback to run after loadout is fully loaded (on client thread)
      * @return true if successful, false if no data exists for current prayerbook
@@ -169,74 +330,65 @@ public class LoadoutManager {
             return false;
         }
 
+        long start = System.nanoTime();
         LoadoutData loadout = getLoadout(name);
         if (loadout == null) {
             return false;
         }
 
         int prayerbook = client.getVarbitValue(VarbitID.PRAYERBOOK);
-
-        if (!loadout.hasPrayerOrder(prayerbook)) {
+        ApplyPlan plan = loadout.getApplyPlan(prayerbook);
+        if (plan == null) {
             return false;
         }
 
-        String savedOrder = loadout.getPrayerOrder(prayerbook);
-
-        // Restore prayer order
-        if ("DEFAULT".equals(savedOrder)) {
-            configManager.unsetConfiguration(PRAYER_CONFIG_GROUP, PRAYER_ORDER_KEY_PREFIX + prayerbook);
-        } else {
-            configManager.setConfiguration(
-                    PRAYER_CONFIG_GROUP,
-                    PRAYER_ORDER_KEY_PREFIX + prayerbook,
-                    savedOrder);
-        }
-
-        // Restore hidden prayers
-        prayerStateManager.loadHiddenPrayers(loadout.getHiddenPrayers(prayerbook), prayerbook);
-
-        // Load filters and chain the completion callback
-        LoadoutData.FilterSettings filters = loadout.getFilters(prayerbook);
-        prayerStateManager.loadPrayerFilters(filters, () -> {
-            updateCachedFilters();
-            if (onComplete != null) {
-                onComplete.run();
-            }
-        });
+        // Restore prayer order, hidden prayers and filters in one pass
+        prayerStateManager.apply(plan);
+        updateCachedFilters();
 
         // Update last loaded loadout
-        configManager.setConfiguration(CONFIG_GROUP, LAST_LOADOUT_KEY, name);
+        loadoutStore.setLastLoadoutName(name);
+        metrics.recordSince(PluginMetrics.Timer.LOAD, start);
+
+        if (onComplete != null) {
+            onComplete.run();
+        }
         return true;
     }
 
-    public void deleteLoadout(String name) {
+    public synchronized void deleteLoadout(String name) {
         if (name == null || name.trim().isEmpty()) {
             return;
         }
 
-        Map<String, LoadoutData> loadouts = getAllLoadouts();
-        if (!loadouts.containsKey(name)) {
+        LoadoutSnapshot library = loadedSnapshot();
+        Map<String, LoadoutData> loadouts = copyLoadouts(library);
+        LoadoutData removed = loadouts.remove(name);
+        if (removed == null) {
             return;
         }
 
-        loadouts.remove(name);
-        saveAllLoadouts(loadouts);
+        publishLoadouts(loadouts, library.getIndex().without(name, removed));
+        loadoutStore.delete(name);
     }
 
-    public void renameLoadout(String oldName, String newName) {
+    public synchronized void renameLoadout(String oldName, String newName) {
         if (oldName == null || newName == null || oldName.trim().isEmpty() || newName.trim().isEmpty()) {
             return;
         }
 
-        Map<String, LoadoutData> loadouts = getAllLoadouts();
+        LoadoutSnapshot library = loadedSnapshot();
+        Map<String, LoadoutData> loadouts = copyLoadouts(library);
         if (!loadouts.containsKey(oldName) || loadouts.containsKey(newName)) {
             return;
         }
 
-        LoadoutData loadout = loadouts.remove(oldName);
+        LoadoutData previous = loadouts.remove(oldName);
+        LoadoutData loadout = new LoadoutData(previous);
         loadout.setDisplayName(newName);
         loadouts.put(newName, loadout);
-        saveAllLoadouts(loadouts);
+        publishLoadouts(loadouts, library.getIndex().without(oldName, previous).with(newName, null, loadout));
+        loadoutStore.rename(oldName, newName, loadout);
     }
 
     public String getActiveLoadoutName(boolean isLoggedIn) {
@@ -244,94 +396,76 @@ public class LoadoutManager {
             return null;
         }
 
-        int prayerbook = cachedPrayerbook;
-        String currentOrder = configManager.getConfiguration(
-                PRAYER_CONFIG_GROUP,
-                PRAYER_ORDER_KEY_PREFIX + prayerbook);
-        boolean isDefaultOrder = (currentOrder == null || currentOrder.isEmpty());
-        String currentHiddenFingerprint = prayerStateManager.getHiddenPrayersFingerprint(prayerbook);
-        String currentFilterFingerprint = cachedFilterFingerprint;
-
-        // First, check if the last loaded loadout still matches (prioritize it)
-        String lastLoadout = getLastLoadoutName();
-        Map<String, LoadoutData> loadouts = getAllLoadouts();
-
-        if (lastLoadout != null && loadouts.containsKey(lastLoadout)) {
-            if (loadoutMatchesCurrent(loadouts.get(lastLoadout), prayerbook, isDefaultOrder, currentOrder,
-                    currentHiddenFingerprint, currentFilterFingerprint)) {
-                return lastLoadout;
-            }
-        }
-
-        // Fall back to finding any matching loadout
-        for (Map.Entry<String, LoadoutData> entry : loadouts.entrySet()) {
-            if (loadoutMatchesCurrent(entry.getValue(), prayerbook, isDefaultOrder, currentOrder,
-                    currentHiddenFingerprint, currentFilterFingerprint)) {
-                return entry.getKey();
-            }
-        }
-
-        return null;
-    }
-
-    private boolean loadoutMatchesCurrent(LoadoutData loadout, int prayerbook, boolean isDefaultOrder,
-            String currentOrder, String currentHiddenFingerprint, String currentFilterFingerprint) {
-
-        String savedOrder = loadout.getPrayerOrder(prayerbook);
-        if (savedOrder == null) {
-            return false;
-        }
-
-        boolean orderMatches = isDefaultOrder
-                ? "DEFAULT".equals(savedOrder)
-                : currentOrder.equals(savedOrder);
-
-        if (!orderMatches) {
-            return false;
-        }
-
-        String savedHiddenFingerprint = getHiddenPrayersFingerprint(loadout.getHiddenPrayers(prayerbook));
-        if (!currentHiddenFingerprint.equals(savedHiddenFingerprint)) {
-            return false;
-        }
-
-        LoadoutData.FilterSettings filters = loadout.getFilters(prayerbook);
-        String savedFilterFingerprint = filters != null ? filters.toFingerprint() : "0,0,0,0,0,0";
-        return currentFilterFingerprint.equals(savedFilterFingerprint);
-    }
-
-    private String getHiddenPrayersFingerprint(Map<String, String> hiddenPrayers) {
-        if (hiddenPrayers == null || hiddenPrayers.isEmpty()) {
-            return "";
+        long start = System.nanoTime();
+        LoadoutSnapshot current = loadedSnapshot();
+        if (current.getLayout() == null) {
+            return null;
         }
 
-        StringBuilder sb = new StringBuilder();
-        hiddenPrayers.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> sb.append(entry.getKey()).append("=").append(entry.getValue()).append(";"));
-        return sb.toString();
+        // The last loaded loadout wins if several loadouts match
+        String match = current.getIndex().findMatch(current.getPrayerbook(), current.getLayout(),
+                current.getPackedFilters(), current.getUnpackedFilters(), getLastLoadoutName());
+        metrics.recordSince(PluginMetrics.Timer.DETECT, start);
+        return match;
     }
 
     public String getLastLoadoutName() {
-        return configManager.getConfiguration(CONFIG_GROUP, LAST_LOADOUT_KEY);
+        return loadoutStore.getLastLoadoutName();
     }
 
-    public void resetToDefaults() {
+    /**
+     * Resets the current prayerbook to its defaults with an optional completion callback.
+     * @param onComplete Optional callback to run after the reset is fully applied (on client thread)
+     * @return true if the reset was started, false if not logged in or the Prayer plugin is disabled
+     */
+    public boolean resetToDefaults(Runnable onComplete) {
         if (client.getGameState() != GameState.LOGGED_IN || !prayerStateManager.isPrayerPluginEnabled()) {
-            return;
+            return false;
         }
 
         int prayerbook = client.getVarbitValue(VarbitID.PRAYERBOOK);
-        prayerStateManager.resetToDefaults(prayerbook);
-        configManager.unsetConfiguration(CONFIG_GROUP, LAST_LOADOUT_KEY);
+        loadoutStore.setLastLoadoutName(null);
+        prayerStateManager.resetToDefaults(prayerbook, () -> {
+            updateCachedFilters();
+            if (onComplete != null) {
+                onComplete.run();
+            }
+        });
+        return true;
     }
 
     /**
      * Saves a loadout directly (used by import).
      */
-    public void saveLoadoutData(String name, LoadoutData loadout) {
-        Map<String, LoadoutData> loadouts = getAllLoadouts();
-        loadouts.put(name, loadout);
-        saveAllLoadouts(loadouts);
+    public synchronized void saveLoadoutData(String name, LoadoutData loadout) {
+        loadout.compileApplyPlans();
+        putLoadout(name, loadout);
+        loadoutStore.save(name, loadout);
+    }
+
+    /**
+     * Publishes a library with one loadout added or replaced, indexing only that loadout.
+     */
+    private void putLoadout(String name, LoadoutData loadout) {
+        LoadoutSnapshot library = loadedSnapshot();
+        Map<String, LoadoutData> loadouts = copyLoadouts(library);
+        LoadoutData previous = loadouts.put(name, loadout);
+        publishLoadouts(loadouts, library.getIndex().with(name, previous, loadout));
+    }
+
+    /**
+     * Saves several loadouts at once (used by bundle import), publishing and persisting them as one batch.
+     */
+    public synchronized void saveAllLoadoutData(Map<String, LoadoutData> imported) {
+        LoadoutSnapshot library = loadedSnapshot();
+        Map<String, LoadoutData> loadouts = copyLoadouts(library);
+        LoadoutIndex index = library.getIndex();
+        for (Map.Entry<String, LoadoutData> entry : imported.entrySet()) {
+            entry.getValue().compileApplyPlans();
+            LoadoutData previous = loadouts.put(entry.getKey(), entry.getValue());
+            index = index.with(entry.getKey(), previous, entry.getValue());
+        }
+        publishLoadouts(loadouts, index);
+        loadoutStore.saveAll(imported);
     }
 }
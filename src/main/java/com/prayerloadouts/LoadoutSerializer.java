@@ -1,20 +1,52 @@
 package com.prayerloadouts;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.awt.Toolkit;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
- * Handles export and import of loadouts via the system clipboard.
+ * Handles export and import of loadouts via the system clipboard, one at a time as a share code or
+ * in the text format, or as a compressed bundle of many.
  */
 @Singleton
 public class LoadoutSerializer {
+    private static final Logger log = LoggerFactory.getLogger(LoadoutSerializer.class);
+
+    static final String BUNDLE_HEADER = "PRAYERBUNDLE:";
+    static final int BUNDLE_VERSION = 1;
+
+    /**
+     * Most bytes a bundle may inflate to. Far above any real library, but stops a short pasted string
+     * from expanding into hundreds of megabytes.
+     */
+    static final int MAX_BUNDLE_BYTES = 4 * 1024 * 1024;
+
     private final LoadoutManager loadoutManager;
 
     @Inject
@@ -23,17 +55,60 @@ public class LoadoutSerializer {
     }
 
     /**
-     * Exports a loadout to clipboard.
+     * Exports a loadout to clipboard, as a share code if it can be represented as one and in the text
+     * format otherwise.
      * @return true if data was exported, false if loadout has no data
      */
     public boolean exportLoadout(String name) {
+        String export = exportShareCode(name);
+        if (export == null) {
+            export = exportToString(name);
+        }
+        return export != null && copyToClipboard(export);
+    }
+
+    /**
+     * Builds the compact share code for a loadout.
+     * @return The share code, or null if the loadout does not exist, has no data or cannot be represented
+     * @see LoadoutShareCode
+     */
+    String exportShareCode(String name) {
+        LoadoutData loadout = loadoutManager.getLoadout(name);
+        if (loadout == null || name.indexOf(',') != -1) {
+            return null;
+        }
+        return LoadoutShareCode.encode(name, loadout);
+    }
+
+    /**
+     * Builds the export text for a loadout.
+     * @return The export text, or null if the loadout does not exist or has no data
+     */
+    String exportToString(String name) {
         LoadoutData loadout = loadoutManager.getLoadout(name);
         if (loadout == null) {
-            return false;
+            return null;
         }
 
         StringBuilder export = new StringBuilder();
-        export.append("PRAYERLOADOUT:").append(name).append("\n");
+        return appendLoadout(export, name, loadout) ? export.toString() : null;
+    }
+
+    /**
+     * Appends a loadout in the text format.
+     * @return false if the loadout has no data, in which case nothing is appended
+     */
+    private static boolean appendLoadout(StringBuilder export, String name, LoadoutData loadout) {
+        int start = export.length();
+        export.append(LoadoutTextParser.HEADER).append(name).append("\n");
+        return appendLoadoutBody(export, start, loadout);
+    }
+
+    /**
+     * Appends the lines after the header.
+     * @param start Length of {@code export} before the header, to roll back to if there is no data
+     */
+    private static boolean appendLoadoutBody(StringBuilder export, int start, LoadoutData loadout) {
 
         boolean hasData = false;
         for (int prayerbook = 0; prayerbook <= 1; prayerbook++) {
@@ -72,153 +147,299 @@ public class LoadoutSerializer {
         }
 
         if (!hasData) {
+            export.setLength(start);
             return false;
         }
 
-        export.append("END");
+        export.append(LoadoutTextParser.END);
+        return true;
+    }
 
-        try {
-            Toolkit.getDefaultToolkit()
-                    .getSystemClipboard()
-                    .setContents(new StringSelection(export.toString()), null);
-            return true;
-        } catch (Exception ignored) {
-            return false;
-        }
+    /**
+     * Exports several loadouts to clipboard as one bundle.
+     * @param names Loadouts to export in order, or null for all of them
+     * @return true if at least one loadout was exported
+     */
+    public boolean exportBundle(Collection<String> names) {
+        String bundle = exportBundleToString(names);
+        return bundle != null && copyToClipboard(bundle);
     }
 
     /**
-     * Imports a loadout from clipboard data.
-     * @param importName Name to use for the imported loadout (null/empty to use original name)
-     * @return true if import was successful, false otherwise
+     * Builds a bundle: {@code PRAYERBUNDLE:<version>:} followed by the loadouts in the text format,
+     * deflate-compressed and base64url-encoded. Names are escaped with {@link LoadoutTextParser#escapeName},
+     * so every name round-trips. Loadouts without data are left out.
+     * @param names Loadouts to export in order, or null for all of them
+     * @return The bundle, or null if none of the loadouts have data
      */
-    public boolean importLoadout(String importName) {
-        String clipboardData;
-        try {
-            clipboardData = (String) Toolkit.getDefaultToolkit()
-                    .getSystemClipboard()
-                    .getData(DataFlavor.stringFlavor);
-        } catch (UnsupportedFlavorException | IOException e) {
-            return false;
-        }
+    String exportBundleToString(Collection<String> names) {
+        Map<String, LoadoutData> loadouts = loadoutManager.getAllLoadouts();
+        Collection<String> selected = names != null ? names : loadouts.keySet();
 
-        // Validate clipboard data format
-        if (clipboardData == null || !clipboardData.startsWith("PRAYERLOADOUT:")) {
-            return false;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        int exported = 0;
+        try (Writer writer = new OutputStreamWriter(new DeflaterOutputStream(
+                Base64.getUrlEncoder().withoutPadding().wrap(bytes), deflater), StandardCharsets.UTF_8)) {
+            StringBuilder entry = new StringBuilder(512);
+            for (String name : selected) {
+                LoadoutData loadout = loadouts.get(name);
+                entry.setLength(0);
+                if (loadout == null) {
+                    continue;
+                }
+                entry.append(LoadoutTextParser.HEADER).append(LoadoutTextParser.escapeName(name)).append('\n');
+                if (!appendLoadoutBody(entry, 0, loadout)) {
+                    continue;
+                }
+                entry.append('\n');
+                writer.append(entry);
+                exported++;
+            }
+        } catch (IOException e) {
+            return null;
+        } finally {
+            deflater.end();
         }
 
-        if (!clipboardData.contains("\nEND")) {
-            return false;
+        if (exported == 0) {
+            return null;
         }
+        return BUNDLE_HEADER + BUNDLE_VERSION + ":" + new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+    }
 
-        String[] lines = clipboardData.split("\n");
-        if (lines.length < 2) {
-            return false;
+    /**
+     * Imports a loadout from clipboard data.
+     * @param importName Name to use for the imported loadout (null/empty to use original name)
+     */
+    public ImportResult importLoadout(String importName) {
+        return importFromString(readClipboard(), importName);
+    }
+
+    /**
+     * Imports a loadout from export text or a share code; the format is detected from the data.
+     * @param importName Name to use for the imported loadout (null/empty to use original name)
+     */
+    ImportResult importFromString(String clipboardData, String importName) {
+        if (clipboardData == null) {
+            return ImportResult.INVALID;
         }
 
-        // Extract and validate original name
-        String originalName = lines[0].substring("PRAYERLOADOUT:".length());
-        if (originalName.isEmpty() || originalName.contains(",")) {
-            return false;
+        LoadoutData loadout;
+        if (clipboardData.trim().startsWith(LoadoutTextParser.HEADER)) {
+            try {
+                loadout = LoadoutTextParser.parse(new StringReader(clipboardData));
+            } catch (LoadoutTextParser.ParseException e) {
+                log.debug("Rejected loadout import at line {}, column {}: {}", e.getLine(), e.getColumn(),
+                        e.getMessage());
+                return ImportResult.failure("The loadout text is invalid at " + e.getMessage() + ".");
+            } catch (IOException e) {
+                return ImportResult.INVALID;
+            }
+        } else {
+            loadout = LoadoutShareCode.decode(clipboardData);
+            if (loadout == null) {
+                return ImportResult.INVALID;
+            }
         }
 
         // Use provided name or fall back to original
         if (importName == null || importName.trim().isEmpty()) {
-            importName = originalName;
+            importName = loadout.getDisplayName();
         } else {
             importName = importName.trim();
         }
+        loadout.setDisplayName(importName);
 
-        // Create new LoadoutData
-        LoadoutData loadout = new LoadoutData(importName);
+        // Save the loadout
+        loadoutManager.saveLoadoutData(importName, loadout);
+        return ImportResult.SUCCESS;
+    }
 
-        // Temporary storage for filter values during parsing
-        Map<Integer, int[]> filterValues = new HashMap<>();
+    /**
+     * Imports a bundle of loadouts from clipboard data.
+     * @return The import result, or null if the clipboard does not hold a valid bundle
+     */
+    public BundleImportResult importBundle(ConflictPolicy policy) {
+        return importBundleFromString(readClipboard(), policy);
+    }
 
-        // Parse and import loadout data
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (line.equals("END")) {
-                break;
-            }
+    /**
+     * Imports a bundle, streaming its loadouts straight from the decoder into the parser.
+     * Nothing is imported if any part of the bundle is invalid.
+     * @return The import result, or null if the data is not a valid bundle
+     */
+    BundleImportResult importBundleFromString(String data, ConflictPolicy policy) {
+        if (data == null) {
+            return null;
+        }
+        data = data.trim();
 
-            int colonIndex = line.indexOf(':');
-            if (colonIndex == -1) {
-                continue;
-            }
+        String prefix = BUNDLE_HEADER + BUNDLE_VERSION + ":";
+        if (!data.startsWith(prefix)) {
+            return null;
+        }
 
-            String key = line.substring(0, colonIndex);
-            String value = line.substring(colonIndex + 1);
+        byte[] encoded = data.getBytes(StandardCharsets.US_ASCII);
+        Set<String> takenNames = new HashSet<>(loadoutManager.getLoadoutNames());
+        Map<String, LoadoutData> imported = new LinkedHashMap<>();
+        int skipped = 0;
 
-            try {
-                if (key.startsWith("ORDER_")) {
-                    int prayerbook = Integer.parseInt(key.substring("ORDER_".length()));
-                    loadout.setPrayerOrder(prayerbook, value);
-                } else if (key.startsWith("FILTER_")) {
-                    String rest = key.substring("FILTER_".length());
-                    int underscoreIdx = rest.indexOf('_');
-                    if (underscoreIdx == -1) {
+        try (Reader reader = new InputStreamReader(new BoundedInputStream(new InflaterInputStream(
+                Base64.getUrlDecoder().wrap(new ByteArrayInputStream(encoded, prefix.length(),
+                        encoded.length - prefix.length()))), MAX_BUNDLE_BYTES), StandardCharsets.UTF_8)) {
+            LoadoutTextParser parser = new LoadoutTextParser(reader, true);
+            LoadoutData loadout;
+            while ((loadout = parser.next()) != null) {
+                String name = loadout.getDisplayName();
+                if (takenNames.contains(name)) {
+                    if (policy == ConflictPolicy.SKIP) {
+                        skipped++;
                         continue;
                     }
-                    int prayerbook = Integer.parseInt(rest.substring(0, underscoreIdx));
-                    String filterKey = rest.substring(underscoreIdx + 1);
-                    int filterValue = Integer.parseInt(value);
-
-                    // Store filter values temporarily
-                    int[] filters = filterValues.computeIfAbsent(prayerbook, k -> new int[6]);
-                    switch (filterKey) {
-                        case "blocklowtier":
-                            filters[0] = filterValue;
-                            break;
-                        case "allowcombinedtier":
-                            filters[1] = filterValue;
-                            break;
-                        case "blockhealing":
-                            filters[2] = filterValue;
-                            break;
-                        case "blocklacklevel":
-                            filters[3] = filterValue;
-                            break;
-                        case "blocklocked":
-                            filters[4] = filterValue;
-                            break;
-                        case "hidefilterbutton":
-                            filters[5] = filterValue;
-                            break;
-                    }
-                } else if (key.startsWith("HIDDEN_")) {
-                    String rest = key.substring("HIDDEN_".length());
-                    int underscoreIdx = rest.indexOf('_');
-                    if (underscoreIdx == -1) {
-                        continue;
-                    }
-                    int prayerbook = Integer.parseInt(rest.substring(0, underscoreIdx));
-                    String hiddenKey = rest.substring(underscoreIdx + 1);
-
-                    Map<String, String> hiddenPrayers = loadout.getHiddenPrayers(prayerbook);
-                    if (hiddenPrayers.isEmpty()) {
-                        hiddenPrayers = new HashMap<>();
+                    if (policy == ConflictPolicy.RENAME) {
+                        name = uniqueName(name, takenNames);
+                        loadout.setDisplayName(name);
                     }
-                    hiddenPrayers.put(hiddenKey, value);
-                    loadout.setHiddenPrayers(prayerbook, hiddenPrayers);
                 }
-            } catch (NumberFormatException e) {
-                // Skip invalid lines
-                continue;
+                takenNames.add(name);
+                imported.put(name, loadout);
             }
+        } catch (IOException | IllegalArgumentException | LoadoutTextParser.ParseException e) {
+            log.debug("Invalid bundle: {}", e.getMessage());
+            return null;
         }
 
-        // Convert temporary filter arrays to FilterSettings objects
-        for (Map.Entry<Integer, int[]> entry : filterValues.entrySet()) {
-            int[] f = entry.getValue();
-            LoadoutData.FilterSettings filters = new LoadoutData.FilterSettings(
-                    f[0], f[1], f[2], f[3], f[4], f[5]
-            );
-            loadout.setFilters(entry.getKey(), filters);
+        if (!imported.isEmpty()) {
+            loadoutManager.saveAllLoadoutData(imported);
         }
+        return new BundleImportResult(imported.size(), skipped);
+    }
 
-        // Save the loadout
-        loadoutManager.saveLoadoutData(importName, loadout);
-        return true;
+    private static String uniqueName(String name, Set<String> takenNames) {
+        for (int i = 2; ; i++) {
+            String candidate = name + " (" + i + ")";
+            if (!takenNames.contains(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static boolean copyToClipboard(String text) {
+        try {
+            Toolkit.getDefaultToolkit()
+                    .getSystemClipboard()
+                    .setContents(new StringSelection(text), null);
+            return true;
+        } catch (Exception ignored) {
+            return false;
+        }
+    }
+
+    private static String readClipboard() {
+        try {
+            return (String) Toolkit.getDefaultToolkit()
+                    .getSystemClipboard()
+                    .getData(DataFlavor.stringFlavor);
+        } catch (UnsupportedFlavorException | IOException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fails with an IOException once more than a set number of bytes have been read.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                consume(read);
+            }
+            return read;
+        }
+
+        private void consume(int bytes) throws IOException {
+            remaining -= bytes;
+            if (remaining < 0) {
+                throw new IOException("bundle is larger than " + MAX_BUNDLE_BYTES + " bytes");
+            }
+        }
+    }
+
+    /**
+     * How a bundle import handles loadouts whose names are already taken.
+     */
+    public enum ConflictPolicy {
+        SKIP,
+        OVERWRITE,
+        RENAME
+    }
+
+    /**
+     * Outcome of a single loadout import.
+     */
+    public static final class ImportResult {
+        static final ImportResult SUCCESS = new ImportResult(null);
+        static final ImportResult INVALID = failure(
+                "Invalid clipboard data. Make sure you copied a valid loadout export or share code.");
+
+        /**
+         * Why the import failed, or null if it succeeded.
+         */
+        private final String error;
+
+        private ImportResult(String error) {
+            this.error = error;
+        }
+
+        static ImportResult failure(String error) {
+            return new ImportResult(error);
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Outcome of a bundle import.
+     */
+    public static final class BundleImportResult {
+        private final int imported;
+        private final int skipped;
+
+        BundleImportResult(int imported, int skipped) {
+            this.imported = imported;
+            this.skipped = skipped;
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
     }
 }
@@ -0,0 +1,251 @@
+package com.prayerloadouts;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary share code for a single loadout, base64url-encoded:
+ * <pre>
+ * magic byte, version byte
+ * varint name length, UTF-8 name
+ * varint prayerbook count, then per prayerbook:
+ *     varint prayerbook, flags byte (bit 0: custom order, bit 1: filters)
+ *     [varint prayer count, varint prayer IDs]   if custom order
+ *     varint hidden prayer mask
+ *     [filter byte, one bit per setting]          if filters
+ * CRC32 of everything above, 4 bytes big-endian
+ * </pre>
+ * Only loadouts whose layouts are compact and whose filter settings are all 0 or 1 can be encoded;
+ * anything else is exported in the text format instead.
+ */
+final class LoadoutShareCode {
+    private static final int MAGIC = 0xA7;
+    private static final int VERSION = 1;
+
+    private static final int FLAG_CUSTOM_ORDER = 1;
+    private static final int FLAG_FILTERS = 1 << 1;
+
+    private static final int CHECKSUM_BYTES = 4;
+
+    private LoadoutShareCode() {
+    }
+
+    /**
+     * Encodes a loadout.
+     * @return The share code, or null if the loadout has no data or cannot be represented
+     */
+    static String encode(String name, LoadoutData loadout) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC);
+        out.write(VERSION);
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, nameBytes.length);
+        out.write(nameBytes, 0, nameBytes.length);
+
+        int prayerbookCount = 0;
+        for (int prayerbook = 0; prayerbook < loadout.getPrayerbookCount(); prayerbook++) {
+            if (loadout.hasPrayerOrder(prayerbook)) {
+                prayerbookCount++;
+            }
+        }
+        if (prayerbookCount == 0) {
+            return null;
+        }
+        writeVarint(out, prayerbookCount);
+
+        for (int prayerbook = 0; prayerbook < loadout.getPrayerbookCount(); prayerbook++) {
+            PrayerLayout layout = loadout.getLayout(prayerbook);
+            if (!layout.hasOrder()) {
+                continue;
+            }
+            if (!layout.isCompact()) {
+                return null;
+            }
+
+            LoadoutData.FilterSettings filters = loadout.getFilters(prayerbook);
+            int filterBits = 0;
+            if (filters != null) {
+                int[] values = {
+                        filters.getBlockLowTier(),
+                        filters.getAllowCombinedTier(),
+                        filters.getBlockHealing(),
+                        filters.getBlockLackLevel(),
+                        filters.getBlockLocked(),
+                        filters.getHideFilterButton(),
+                };
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != 0 && values[i] != 1) {
+                        return null;
+                    }
+                    filterBits |= values[i] << i;
+                }
+            }
+
+            short[] order = layout.getOrderIds();
+            writeVarint(out, prayerbook);
+            out.write((order != null ? FLAG_CUSTOM_ORDER : 0) | (filters != null ? FLAG_FILTERS : 0));
+            if (order != null) {
+                writeVarint(out, order.length);
+                for (short id : order) {
+                    writeVarint(out, id);
+                }
+            }
+            writeVarint(out, layout.getHiddenMask());
+            if (filters != null) {
+                out.write(filterBits);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(out.toByteArray());
+        long checksum = crc.getValue();
+        for (int shift = 8 * (CHECKSUM_BYTES - 1); shift >= 0; shift -= 8) {
+            out.write((int) (checksum >>> shift) & 0xFF);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * Decodes a share code.
+     * @return The loadout, with its display name set to the encoded name, or null if the code is not valid
+     */
+    static LoadoutData decode(String code) {
+        byte[] data;
+        try {
+            data = Base64.getUrlDecoder().decode(code.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (data.length < 2 + CHECKSUM_BYTES || (data[0] & 0xFF) != MAGIC || data[1] != VERSION) {
+            return null;
+        }
+
+        int payloadLength = data.length - CHECKSUM_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, payloadLength);
+        long checksum = 0;
+        for (int i = payloadLength; i < data.length; i++) {
+            checksum = (checksum << 8) | (data[i] & 0xFF);
+        }
+        if (checksum != crc.getValue()) {
+            return null;
+        }
+
+        Reader in = new Reader(data, 2, payloadLength);
+        try {
+            int nameLength = in.readCount();
+            String name = new String(data, in.take(nameLength), nameLength, StandardCharsets.UTF_8);
+            if (name.isEmpty() || name.indexOf(',') != -1) {
+                return null;
+            }
+
+            LoadoutData loadout = new LoadoutData(name);
+            int prayerbookCount = in.readCount();
+            for (int i = 0; i < prayerbookCount; i++) {
+                long prayerbook = in.readVarint();
+                int flags = in.readByte();
+                if (prayerbook < 0 || prayerbook >= LoadoutData.MAX_PRAYERBOOKS) {
+                    return null;
+                }
+
+                short[] order = null;
+                if ((flags & FLAG_CUSTOM_ORDER) != 0) {
+                    order = new short[in.readCount()];
+                    for (int j = 0; j < order.length; j++) {
+                        long id = in.readVarint();
+                        if (id < 0 || id > Short.MAX_VALUE) {
+                            return null;
+                        }
+                        order[j] = (short) id;
+                    }
+                }
+                loadout.setLayout((int) prayerbook, PrayerLayout.fromCompact(order, in.readVarint()));
+
+                if ((flags & FLAG_FILTERS) != 0) {
+                    int bits = in.readByte();
+                    loadout.setFilters((int) prayerbook, new LoadoutData.FilterSettings(
+                            bits & 1, (bits >> 1) & 1, (bits >> 2) & 1,
+                            (bits >> 3) & 1, (bits >> 4) & 1, (bits >> 5) & 1));
+                }
+            }
+
+            return in.isAtEnd() ? loadout : null;
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Cursor over the payload; reading past the end throws IndexOutOfBoundsException.
+     */
+    private static final class Reader {
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        Reader(byte[] data, int start, int end) {
+            this.data = data;
+            this.position = start;
+            this.end = end;
+        }
+
+        int readByte() {
+            if (position >= end) {
+                throw new IndexOutOfBoundsException();
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IndexOutOfBoundsException("varint is too long");
+        }
+
+        /**
+         * Reads a varint used as a length or count. Every counted item takes at least one byte, so
+         * anything larger than the rest of the payload is rejected before it is allocated.
+         */
+        int readCount() {
+            long value = readVarint();
+            if (value > end - position) {
+                throw new IndexOutOfBoundsException("count is too large");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Skips {@code length} bytes and returns where they start.
+         */
+        int take(int length) {
+            if (length > end - position) {
+                throw new IndexOutOfBoundsException();
+            }
+            int start = position;
+            position += length;
+            return start;
+        }
+
+        boolean isAtEnd() {
+            return position == end;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.prayerloadouts;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable view of the loadout library, its fingerprint index and the live prayerbook state they are
+ * matched against. {@link LoadoutManager} publishes a new snapshot for every change, so a reader on any
+ * thread sees a library, index, prayerbook, layout and filters that belong together, without locking.
+ */
+final class LoadoutSnapshot {
+    static final LoadoutSnapshot EMPTY =
+            new LoadoutSnapshot(null, null, 0, null, LoadoutData.FilterSettings.DEFAULT_PACKED, null);
+
+    /**
+     * Read-only loadouts by name, or null if they need to be read from config again.
+     */
+    private final Map<String, LoadoutData> loadouts;
+    private final LoadoutIndex index;
+
+    private final int prayerbook;
+
+    /**
+     * Live prayer order and hidden prayers of {@link #prayerbook}, or null if not captured yet.
+     */
+    private final PrayerLayout layout;
+    private final int packedFilters;
+
+    /**
+     * Live filter settings, kept only when they cannot be packed; null otherwise.
+     */
+    private final LoadoutData.FilterSettings unpackedFilters;
+
+    private LoadoutSnapshot(Map<String, LoadoutData> loadouts, LoadoutIndex index, int prayerbook,
+            PrayerLayout layout, int packedFilters, LoadoutData.FilterSettings unpackedFilters) {
+        this.loadouts = loadouts;
+        this.index = index;
+        this.prayerbook = prayerbook;
+        this.layout = layout;
+        this.packedFilters = packedFilters;
+        this.unpackedFilters = unpackedFilters;
+    }
+
+    /**
+     * @param loadouts Read-only loadouts, never mutated afterwards
+     * @param index Index built from {@code loadouts}
+     */
+    LoadoutSnapshot withLibrary(Map<String, LoadoutData> loadouts, LoadoutIndex index) {
+        return new LoadoutSnapshot(loadouts, index, prayerbook, layout, packedFilters, unpackedFilters);
+    }
+
+    LoadoutSnapshot withoutLibrary() {
+        return loadouts == null ? this
+                : new LoadoutSnapshot(null, null, prayerbook, layout, packedFilters, unpackedFilters);
+    }
+
+    /**
+     * @param layout Live layout of {@code prayerbook}
+     * @param unpackedFilters Live filter settings if {@code packedFilters} is
+     *                        {@link LoadoutData.FilterSettings#UNPACKABLE}, otherwise null
+     */
+    LoadoutSnapshot withLiveState(int prayerbook, PrayerLayout layout, int packedFilters,
+            LoadoutData.FilterSettings unpackedFilters) {
+        if (this.prayerbook == prayerbook && Objects.equals(this.layout, layout)
+                && this.packedFilters == packedFilters
+                && (unpackedFilters == null || LoadoutData.FilterSettings.sameSettings(this.unpackedFilters,
+                        unpackedFilters))) {
+            return this;
+        }
+        return new LoadoutSnapshot(loadouts, index, prayerbook, layout, packedFilters, unpackedFilters);
+    }
+
+    /**
+     * Replaces only the live layout, for Prayer plugin config changes that leave the varbits alone.
+     */
+    LoadoutSnapshot withLayout(PrayerLayout layout) {
+        return Objects.equals(this.layout, layout) ? this
+                : new LoadoutSnapshot(loadouts, index, prayerbook, layout, packedFilters, unpackedFilters);
+    }
+
+    boolean hasLibrary() {
+        return loadouts != null;
+    }
+
+    Map<String, LoadoutData> getLoadouts() {
+        return loadouts;
+    }
+
+    LoadoutIndex getIndex() {
+        return index;
+    }
+
+    int getPrayerbook() {
+        return prayerbook;
+    }
+
+    PrayerLayout getLayout() {
+        return layout;
+    }
+
+    int getPackedFilters() {
+        return packedFilters;
+    }
+
+    LoadoutData.FilterSettings getUnpackedFilters() {
+        return unpackedFilters;
+    }
+}
@@ -0,0 +1,451 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import net.runelite.client.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists loadouts in config, one key per loadout plus a manifest listing them in display order.
+ * A change only rewrites the keys of the loadouts it touches.
+ * <p>
+ * Writes are deferred: changes mark keys dirty and are written together on the background executor
+ * once no further changes arrive for a short quiet period, or when {@link #flush()} is called.
+ */
+@Singleton
+public class LoadoutStore {
+    private static final Logger log = LoggerFactory.getLogger(LoadoutStore.class);
+
+    static final String MANIFEST_KEY = "loadout_manifest";
+    static final String SHARD_KEY_PREFIX = "loadout_";
+
+    /**
+     * Single key that held every loadout before they were split into shards.
+     */
+    static final String LEGACY_LOADOUTS_KEY = "loadouts";
+
+    /**
+     * How long to wait for further changes before writing.
+     */
+    private static final long QUIET_PERIOD_MS = 500;
+
+    /**
+     * Upper bound on how long a continuous burst of changes can postpone a write.
+     */
+    private static final long MAX_WRITE_DELAY_MS = 5000;
+
+    private static final Type MANIFEST_TYPE = new TypeToken<LinkedHashMap<String, String>>() {}.getType();
+    private static final Type LEGACY_LOADOUTS_TYPE = new TypeToken<Map<String, LoadoutData>>() {}.getType();
+
+    private final ConfigManager configManager;
+    private final Gson gson;
+    private final ScheduledExecutorService executor;
+    private final PluginMetrics metrics;
+
+    /**
+     * Loadout name -> shard key, in display order.
+     */
+    private LinkedHashMap<String, String> manifest = new LinkedHashMap<>();
+
+    /**
+     * Shard keys in use by the manifest, so allocating a key does not scan it.
+     */
+    private Set<String> shardKeys = new HashSet<>();
+
+    /**
+     * Values most recently written per key (empty for unset), used to recognise our own ConfigChanged events.
+     */
+    private final Map<String, String> lastWritten = new ConcurrentHashMap<>();
+
+    /**
+     * Shard key -> loadout waiting to be written, or null if the key is waiting to be unset.
+     */
+    private final Map<String, LoadoutData> pendingShards = new LinkedHashMap<>();
+    private boolean manifestDirty;
+    private boolean lastLoadoutDirty;
+
+    /**
+     * Name of the last loaded loadout, or null if none. Read from config once and then kept in memory.
+     */
+    private String lastLoadoutName;
+    private boolean lastLoadoutRead;
+
+    private ScheduledFuture<?> scheduledFlush;
+    private long firstPendingAt;
+
+    /**
+     * Serializes flushes so writes to the same key are never reordered.
+     */
+    private final Object flushLock = new Object();
+
+    @Inject
+    public LoadoutStore(ConfigManager configManager, Gson gson, ScheduledExecutorService executor,
+            PluginMetrics metrics) {
+        this.configManager = configManager;
+        this.gson = gson;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reads every loadout from config, migrating the legacy single-key format on first use.
+     * Pending changes should be flushed or discarded first.
+     */
+    public synchronized Map<String, LoadoutData> readAll() {
+        if (!lastLoadoutDirty) {
+            lastLoadoutRead = false;
+        }
+
+        String manifestJson = configManager.getConfiguration(LoadoutManager.CONFIG_GROUP, MANIFEST_KEY);
+        if (manifestJson == null || manifestJson.isEmpty()) {
+            return migrateLegacyLoadouts();
+        }
+
+        LinkedHashMap<String, String> parsedManifest;
+        try {
+            parsedManifest = gson.fromJson(manifestJson, MANIFEST_TYPE);
+        } catch (Exception e) {
+            parsedManifest = null;
+        }
+        if (parsedManifest == null) {
+            log.warn("Loadout manifest is unreadable, rebuilding it from the stored loadouts");
+            return recoverManifest();
+        }
+        manifest = parsedManifest;
+        shardKeys = new HashSet<>(manifest.values());
+
+        Map<String, LoadoutData> loadouts = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : manifest.entrySet()) {
+            LoadoutData loadout = readShard(entry.getValue());
+            if (loadout != null) {
+                loadouts.put(entry.getKey(), loadout);
+            }
+        }
+        return loadouts;
+    }
+
+    /**
+     * Reads a single shard.
+     * @return The loadout, or null if the shard is missing or corrupt
+     */
+    private LoadoutData readShard(String shardKey) {
+        String json = configManager.getConfiguration(LoadoutManager.CONFIG_GROUP, shardKey);
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return gson.fromJson(json, LoadoutData.class);
+        } catch (Exception e) {
+            // Skip a corrupt shard rather than losing the whole library; the shard itself is left in place
+            log.warn("Skipping unreadable loadout in {}: {}", shardKey, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Rebuilds an unreadable manifest from the shards in config, naming each loadout after the display name
+     * saved in its shard. Shards are listed in key order, since their display order was in the manifest.
+     * The rebuilt manifest replaces the unreadable one on the next flush.
+     */
+    private Map<String, LoadoutData> recoverManifest() {
+        manifest = new LinkedHashMap<>();
+        shardKeys = new HashSet<>();
+        Map<String, LoadoutData> loadouts = new LinkedHashMap<>();
+
+        String groupPrefix = LoadoutManager.CONFIG_GROUP + ".";
+        List<String> keys = new ArrayList<>();
+        for (String key : configManager.getConfigurationKeys(groupPrefix + SHARD_KEY_PREFIX)) {
+            if (key.startsWith(groupPrefix) && !key.equals(groupPrefix + MANIFEST_KEY)) {
+                keys.add(key.substring(groupPrefix.length()));
+            }
+        }
+        Collections.sort(keys);
+
+        for (String shardKey : keys) {
+            LoadoutData loadout = readShard(shardKey);
+            if (loadout == null) {
+                continue;
+            }
+
+            String baseName = loadout.getDisplayName() != null && !loadout.getDisplayName().isEmpty()
+                    ? loadout.getDisplayName() : shardKey.substring(SHARD_KEY_PREFIX.length());
+            String name = baseName;
+            for (int i = 2; loadouts.containsKey(name); i++) {
+                name = baseName + " (" + i + ")";
+            }
+
+            manifest.put(name, shardKey);
+            shardKeys.add(shardKey);
+            loadouts.put(name, loadout);
+        }
+
+        manifestDirty = true;
+        scheduleFlush();
+        return loadouts;
+    }
+
+    private Map<String, LoadoutData> migrateLegacyLoadouts() {
+        manifest = new LinkedHashMap<>();
+        shardKeys = new HashSet<>();
+        Map<String, LoadoutData> loadouts = new LinkedHashMap<>();
+
+        String json = configManager.getConfiguration(LoadoutManager.CONFIG_GROUP, LEGACY_LOADOUTS_KEY);
+        if (json == null || json.isEmpty()) {
+            return loadouts;
+        }
+
+        try {
+            Map<String, LoadoutData> parsed = gson.fromJson(json, LEGACY_LOADOUTS_TYPE);
+            if (parsed != null) {
+                loadouts.putAll(parsed);
+            }
+        } catch (Exception e) {
+            // Leave unreadable legacy data in place rather than deleting it
+            log.warn("Legacy loadouts are unreadable, leaving them unmigrated: {}", e.getMessage());
+            return loadouts;
+        }
+
+        // Written immediately, and shards before the legacy key is removed, so an interrupted migration loses nothing
+        for (Map.Entry<String, LoadoutData> entry : loadouts.entrySet()) {
+            String shardKey = allocateShardKey(entry.getKey());
+            manifest.put(entry.getKey(), shardKey);
+            set(shardKey, gson.toJson(entry.getValue(), LoadoutData.class));
+        }
+        if (!manifest.isEmpty()) {
+            set(MANIFEST_KEY, gson.toJson(manifest, MANIFEST_TYPE));
+        }
+        unset(LEGACY_LOADOUTS_KEY);
+        return loadouts;
+    }
+
+    /**
+     * Writes a single loadout, adding it to the manifest if it is new.
+     */
+    public synchronized void save(String name, LoadoutData loadout) {
+        stage(name, loadout);
+        scheduleFlush();
+    }
+
+    /**
+     * Writes several loadouts in one batch, adding new ones to the manifest.
+     */
+    public synchronized void saveAll(Map<String, LoadoutData> loadouts) {
+        for (Map.Entry<String, LoadoutData> entry : loadouts.entrySet()) {
+            stage(entry.getKey(), entry.getValue());
+        }
+        scheduleFlush();
+    }
+
+    private void stage(String name, LoadoutData loadout) {
+        String shardKey = manifest.get(name);
+        if (shardKey == null) {
+            shardKey = allocateShardKey(name);
+            manifest.put(name, shardKey);
+            manifestDirty = true;
+        }
+        pendingShards.put(shardKey, loadout);
+    }
+
+    /**
+     * Removes a single loadout and its manifest entry.
+     */
+    public synchronized void delete(String name) {
+        String shardKey = manifest.remove(name);
+        if (shardKey == null) {
+            return;
+        }
+        shardKeys.remove(shardKey);
+        pendingShards.put(shardKey, null);
+        manifestDirty = true;
+        scheduleFlush();
+    }
+
+    /**
+     * Renames a loadout, keeping its shard key so only the shard and the manifest are rewritten.
+     */
+    public synchronized void rename(String oldName, String newName, LoadoutData loadout) {
+        String shardKey = manifest.remove(oldName);
+        if (shardKey == null) {
+            save(newName, loadout);
+            return;
+        }
+        manifest.put(newName, shardKey);
+        pendingShards.put(shardKey, loadout);
+        manifestDirty = true;
+        scheduleFlush();
+    }
+
+    public synchronized String getLastLoadoutName() {
+        if (!lastLoadoutRead) {
+            lastLoadoutName = configManager.getConfiguration(LoadoutManager.CONFIG_GROUP,
+                    LoadoutManager.LAST_LOADOUT_KEY);
+            lastLoadoutRead = true;
+        }
+        return lastLoadoutName;
+    }
+
+    /**
+     * Records the last loaded loadout.
+     * @param name Loadout name, or null to clear it
+     */
+    public synchronized void setLastLoadoutName(String name) {
+        if (lastLoadoutRead && Objects.equals(lastLoadoutName, name)) {
+            return;
+        }
+        lastLoadoutName = name;
+        lastLoadoutRead = true;
+        lastLoadoutDirty = true;
+        scheduleFlush();
+    }
+
+    /**
+     * Writes all pending changes to config now. Safe to call from any thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, LoadoutData> shards;
+            Map<String, String> manifestSnapshot = null;
+            boolean writeLastLoadout;
+            String lastLoadout;
+
+            synchronized (this) {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (pendingShards.isEmpty() && !manifestDirty && !lastLoadoutDirty) {
+                    return;
+                }
+
+                shards = new LinkedHashMap<>(pendingShards);
+                if (manifestDirty) {
+                    manifestSnapshot = new LinkedHashMap<>(manifest);
+                }
+                writeLastLoadout = lastLoadoutDirty;
+                lastLoadout = lastLoadoutName;
+
+                pendingShards.clear();
+                manifestDirty = false;
+                lastLoadoutDirty = false;
+            }
+
+            // Serialize and write outside the store lock; published loadouts are never mutated
+            long start = System.nanoTime();
+            for (Map.Entry<String, LoadoutData> entry : shards.entrySet()) {
+                if (entry.getValue() == null) {
+                    unset(entry.getKey());
+                } else {
+                    set(entry.getKey(), gson.toJson(entry.getValue(), LoadoutData.class));
+                }
+            }
+            if (manifestSnapshot != null) {
+                if (manifestSnapshot.isEmpty()) {
+                    unset(MANIFEST_KEY);
+                } else {
+                    set(MANIFEST_KEY, gson.toJson(manifestSnapshot, MANIFEST_TYPE));
+                }
+            }
+            if (writeLastLoadout) {
+                if (lastLoadout == null) {
+                    unset(LoadoutManager.LAST_LOADOUT_KEY);
+                } else {
+                    set(LoadoutManager.LAST_LOADOUT_KEY, lastLoadout);
+                }
+            }
+            metrics.recordSince(PluginMetrics.Timer.FLUSH, start);
+        }
+    }
+
+    /**
+     * Drops pending changes without writing them, e.g. because the profile they belong to is gone.
+     */
+    public synchronized void discardPending() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        pendingShards.clear();
+        manifestDirty = false;
+        lastLoadoutDirty = false;
+    }
+
+    /**
+     * (Re)starts the quiet period, without postponing a write past the maximum delay.
+     */
+    private void scheduleFlush() {
+        long now = System.currentTimeMillis();
+        if (scheduledFlush == null) {
+            firstPendingAt = now;
+        } else {
+            scheduledFlush.cancel(false);
+        }
+
+        long delay = Math.min(QUIET_PERIOD_MS, Math.max(0, firstPendingAt + MAX_WRITE_DELAY_MS - now));
+        scheduledFlush = executor.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns true if the key holds loadout data managed by this store.
+     */
+    static boolean isLoadoutKey(String key) {
+        return key != null && (key.startsWith(SHARD_KEY_PREFIX) || key.equals(LEGACY_LOADOUTS_KEY)
+                || key.equals(LoadoutManager.LAST_LOADOUT_KEY));
+    }
+
+    /**
+     * Returns true if the change matches what this store last wrote to the key.
+     */
+    public boolean isOwnWrite(String key, String newValue) {
+        String written = lastWritten.get(key);
+        if (written == null) {
+            return false;
+        }
+        return written.equals(newValue == null ? "" : newValue);
+    }
+
+    private String allocateShardKey(String name) {
+        String base = SHARD_KEY_PREFIX + toSafeKey(name);
+        String shardKey = base;
+        for (int i = 2; shardKey.equals(MANIFEST_KEY) || shardKeys.contains(shardKey); i++) {
+            shardKey = base + "_" + i;
+        }
+        shardKeys.add(shardKey);
+        return shardKey;
+    }
+
+    static String toSafeKey(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.toLowerCase().replaceAll("[^a-z0-9]", "_");
+    }
+
+    private void set(String key, String value) {
+        lastWritten.put(key, value);
+        metrics.increment(PluginMetrics.Counter.CONFIG_WRITES);
+        configManager.setConfiguration(LoadoutManager.CONFIG_GROUP, key, value);
+    }
+
+    private void unset(String key) {
+        lastWritten.put(key, "");
+        metrics.increment(PluginMetrics.Counter.CONFIG_WRITES);
+        configManager.unsetConfiguration(LoadoutManager.CONFIG_GROUP, key);
+    }
+}
@@ -0,0 +1,382 @@
+package com.prayerloadouts;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-pass parser for the clipboard text format written by {@link LoadoutSerializer}:
+ * <pre>
+ * PRAYERLOADOUT:name
+ * ORDER_0:3,1,2,...
+ * FILTER_0_blocklowtier:0
+ * HIDDEN_0__12:true
+ * END
+ * </pre>
+ * The input is read once, a character at a time, into a reused line buffer and the loadout is built
+ * directly from it. Lines with no colon or an unknown key are skipped; malformed lines are reported
+ * with their line and column. Several loadouts can be read in sequence from one input with {@link #next()}.
+ */
+final class LoadoutTextParser {
+    static final String HEADER = "PRAYERLOADOUT:";
+    static final String END = "END";
+
+    private static final String ORDER_PREFIX = "ORDER_";
+    private static final String FILTER_PREFIX = "FILTER_";
+    private static final String HIDDEN_PREFIX = "HIDDEN_";
+
+    /**
+     * Filter keys in {@link LoadoutData.FilterSettings} constructor order.
+     */
+    private static final String[] FILTER_KEYS = {
+            "blocklowtier",
+            "allowcombinedtier",
+            "blockhealing",
+            "blocklacklevel",
+            "blocklocked",
+            "hidefilterbutton",
+    };
+
+    private final Reader reader;
+
+    /**
+     * Whether header names are written with {@link #escapeName}, as in bundles, so they may contain ','.
+     */
+    private final boolean escapedNames;
+
+    private final char[] buffer = new char[4096];
+    private int bufferPosition;
+    private int bufferLength;
+
+    private final StringBuilder line = new StringBuilder(128);
+    private int lineNumber;
+
+    /**
+     * End of the parsed number, set by {@link #parseInt}.
+     */
+    private int numberEnd;
+
+    LoadoutTextParser(Reader reader) {
+        this(reader, false);
+    }
+
+    LoadoutTextParser(Reader reader, boolean escapedNames) {
+        this.reader = reader;
+        this.escapedNames = escapedNames;
+    }
+
+    /**
+     * Escapes '%' and ',' in a loadout name as {@code %25} and {@code %2C}, so any name can be written
+     * to a bundle.
+     */
+    static String escapeName(String name) {
+        if (name.indexOf('%') == -1 && name.indexOf(',') == -1) {
+            return name;
+        }
+        return name.replace("%", "%25").replace(",", "%2C");
+    }
+
+    /**
+     * Parses one loadout. Input after the END line is not read.
+     * @return The loadout, with its display name set to the name in the header
+     * @throws ParseException If the input is not a valid loadout
+     */
+    static LoadoutData parse(Reader reader) throws IOException, ParseException {
+        LoadoutTextParser parser = new LoadoutTextParser(reader);
+        LoadoutData loadout = parser.next();
+        if (loadout == null) {
+            throw parser.error(1, "expected " + HEADER + "<name>");
+        }
+        return loadout;
+    }
+
+    /**
+     * Parses the next loadout, skipping blank lines before it.
+     * @return The loadout, with its display name set to the name in the header, or null at the end of the input
+     * @throws ParseException If the next loadout is not valid
+     */
+    LoadoutData next() throws IOException, ParseException {
+        do {
+            if (!readLine()) {
+                return null;
+            }
+        } while (isBlankLine());
+
+        // Leading whitespace before the header is allowed, as when text is pasted with indentation
+        int headerStart = 0;
+        while (headerStart < line.length() && line.charAt(headerStart) <= ' ') {
+            headerStart++;
+        }
+        if (!startsWith(headerStart, HEADER)) {
+            throw error(headerStart + 1, "expected " + HEADER + "<name>");
+        }
+        int nameStart = headerStart + HEADER.length();
+        int nameEnd = line.length();
+        if (nameEnd > nameStart && line.charAt(nameEnd - 1) == '\r') {
+            nameEnd--;
+        }
+        String name = line.substring(nameStart, nameEnd);
+        if (name.isEmpty()) {
+            throw error(nameStart + 1, "loadout name is empty");
+        }
+        int comma = name.indexOf(',');
+        if (comma != -1) {
+            throw error(nameStart + comma + 1, "loadout name cannot contain ','");
+        }
+        if (escapedNames) {
+            name = unescapeName(name, nameStart);
+        }
+
+        LoadoutData loadout = new LoadoutData(name);
+        int[][] filters = new int[LoadoutData.MAX_PRAYERBOOKS][];
+        @SuppressWarnings("unchecked")
+        Map<String, String>[] hidden = new Map[LoadoutData.MAX_PRAYERBOOKS];
+
+        boolean ended = false;
+        while (readLine()) {
+            // Same bounds as String.trim()
+            int start = 0;
+            int end = line.length();
+            while (start < end && line.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && line.charAt(end - 1) <= ' ') {
+                end--;
+            }
+
+            if (end - start == END.length() && startsWith(start, END)) {
+                ended = true;
+                break;
+            }
+
+            int colon = indexOf(':', start, end);
+            if (colon == -1) {
+                continue;
+            }
+
+            if (startsWith(start, ORDER_PREFIX)) {
+                int prayerbook = parseInt(start + ORDER_PREFIX.length(), colon);
+                expectEnd(colon);
+                loadout.setPrayerOrder(prayerbook, line.substring(colon + 1, end));
+            } else if (startsWith(start, FILTER_PREFIX)) {
+                int prayerbook = parseInt(start + FILTER_PREFIX.length(), colon);
+                expect(numberEnd, '_');
+                int filter = filterIndex(numberEnd + 1, colon);
+                int value = parseInt(colon + 1, end);
+                expectEnd(end);
+
+                if (LoadoutData.isValidPrayerbook(prayerbook)) {
+                    if (filters[prayerbook] == null) {
+                        filters[prayerbook] = new int[FILTER_KEYS.length];
+                    }
+                    if (filter != -1) {
+                        filters[prayerbook][filter] = value;
+                    }
+                }
+            } else if (startsWith(start, HIDDEN_PREFIX)) {
+                int prayerbook = parseInt(start + HIDDEN_PREFIX.length(), colon);
+                expect(numberEnd, '_');
+
+                if (LoadoutData.isValidPrayerbook(prayerbook)) {
+                    if (hidden[prayerbook] == null) {
+                        hidden[prayerbook] = new HashMap<>();
+                    }
+                    hidden[prayerbook].put(line.substring(numberEnd + 1, colon), line.substring(colon + 1, end));
+                }
+            }
+        }
+
+        if (!ended) {
+            throw error(1, "missing " + END + " line");
+        }
+
+        for (int prayerbook = 0; prayerbook < LoadoutData.MAX_PRAYERBOOKS; prayerbook++) {
+            int[] f = filters[prayerbook];
+            if (f != null) {
+                loadout.setFilters(prayerbook, new LoadoutData.FilterSettings(f[0], f[1], f[2], f[3], f[4], f[5]));
+            }
+            if (hidden[prayerbook] != null) {
+                loadout.setHiddenPrayers(prayerbook, hidden[prayerbook]);
+            }
+        }
+        return loadout;
+    }
+
+    /**
+     * Reads the next line into {@link #line}, without its line terminator.
+     * @return false at the end of the input
+     */
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        boolean readAny = false;
+        while (true) {
+            if (bufferPosition == bufferLength) {
+                bufferLength = reader.read(buffer, 0, buffer.length);
+                bufferPosition = 0;
+                if (bufferLength <= 0) {
+                    bufferLength = 0;
+                    if (readAny) {
+                        lineNumber++;
+                    }
+                    return readAny;
+                }
+            }
+
+            readAny = true;
+            char c = buffer[bufferPosition++];
+            if (c == '\n') {
+                lineNumber++;
+                return true;
+            }
+            line.append(c);
+        }
+    }
+
+    private boolean isBlankLine() {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int from, String prefix) {
+        if (line.length() - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line.charAt(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses an optionally signed decimal int starting at {@code from} and stopping at the first
+     * non-digit or at {@code to}. The position after the number is left in {@link #numberEnd}.
+     */
+    private int parseInt(int from, int to) throws ParseException {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+
+        int digitsStart = i;
+        long value = 0;
+        while (i < to) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw error(from + 1, "number is too large");
+            }
+            i++;
+        }
+
+        if (i == digitsStart) {
+            throw error(from + 1, "expected a number");
+        }
+        if (!negative && value > Integer.MAX_VALUE) {
+            throw error(from + 1, "number is too large");
+        }
+        numberEnd = i;
+        return (int) (negative ? -value : value);
+    }
+
+    private void expect(int position, char c) throws ParseException {
+        if (position >= line.length() || line.charAt(position) != c) {
+            throw error(position + 1, "expected '" + c + "'");
+        }
+    }
+
+    /**
+     * Checks that the last parsed number runs up to {@code position}.
+     */
+    private void expectEnd(int position) throws ParseException {
+        if (numberEnd != position) {
+            throw error(numberEnd + 1, "unexpected character '" + line.charAt(numberEnd) + "'");
+        }
+    }
+
+    /**
+     * Gets the index of the filter key in {@code [from, to)}, or -1 if it is not a known key.
+     */
+    private int filterIndex(int from, int to) {
+        for (int i = 0; i < FILTER_KEYS.length; i++) {
+            if (to - from == FILTER_KEYS[i].length() && startsWith(from, FILTER_KEYS[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reverses {@link #escapeName}.
+     * @param offset Position of the name in the line, for error columns
+     */
+    private String unescapeName(String name, int offset) throws ParseException {
+        int percent = name.indexOf('%');
+        if (percent == -1) {
+            return name;
+        }
+
+        StringBuilder unescaped = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '%') {
+                unescaped.append(c);
+            } else if (name.startsWith("%25", i)) {
+                unescaped.append('%');
+                i += 2;
+            } else if (name.startsWith("%2C", i)) {
+                unescaped.append(',');
+                i += 2;
+            } else {
+                throw error(offset + i + 1, "invalid escape in loadout name");
+            }
+        }
+        return unescaped.toString();
+    }
+
+    private ParseException error(int column, String message) {
+        return new ParseException(Math.max(lineNumber, 1), column, message);
+    }
+
+    /**
+     * Thrown when the input is not a valid loadout, with the 1-based line and column of the problem.
+     */
+    static final class ParseException extends Exception {
+        private final int line;
+        private final int column;
+
+        ParseException(int line, int column, String message) {
+            super("line " + line + ", column " + column + ": " + message);
+            this.line = line;
+            this.column = column;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        int getColumn() {
+            return column;
+        }
+    }
+}
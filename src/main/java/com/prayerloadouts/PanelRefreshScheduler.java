@@ -0,0 +1,55 @@
+package com.prayerloadouts;
+
+import net.runelite.client.callback.ClientThread;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.swing.SwingUtilities;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces panel refresh requests so a burst of state changes results in a single rebuild.
+ * Requests made within the same client frame are merged, then the rebuild runs once on the Swing EDT.
+ */
+@Singleton
+public class PanelRefreshScheduler {
+    private final ClientThread clientThread;
+    private final PluginMetrics metrics;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private volatile PrayerLoadoutsPanel panel;
+
+    @Inject
+    public PanelRefreshScheduler(ClientThread clientThread, PluginMetrics metrics) {
+        this.clientThread = clientThread;
+        this.metrics = metrics;
+    }
+
+    public void setPanel(PrayerLoadoutsPanel panel) {
+        this.panel = panel;
+    }
+
+    /**
+     * Marks the panel as needing a rebuild. Safe to call from any thread.
+     */
+    public void requestRefresh() {
+        metrics.increment(PluginMetrics.Counter.REFRESH_REQUESTS);
+        if (dirty.compareAndSet(false, true)) {
+            // Wait for the rest of the current client frame before handing over to the EDT
+            clientThread.invokeLater(() -> SwingUtilities.invokeLater(this::performRefresh));
+        }
+    }
+
+    private void performRefresh() {
+        // Clear first so requests made during the rebuild schedule another one
+        dirty.set(false);
+
+        PrayerLoadoutsPanel current = panel;
+        if (current != null) {
+            long start = System.nanoTime();
+            current.rebuild();
+            metrics.recordSince(PluginMetrics.Timer.REBUILD, start);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.prayerloadouts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms for the plugin's hot paths, shown in the panel's Diagnostics section
+ * and written to the client log on request. Recording is lock-free and does not allocate, so it stays on
+ * in normal play.
+ */
+@Singleton
+public class PluginMetrics {
+    private static final Logger log = LoggerFactory.getLogger(PluginMetrics.class);
+
+    /**
+     * Timed operations. Each histogram's count doubles as the operation's call counter.
+     */
+    enum Timer {
+        LOAD("Load"),
+        AUTO_LOAD("Login auto-load"),
+        SAVE("Save"),
+        DETECT("Detect active"),
+        PARSE("Parse library"),
+        FLUSH("Write to config"),
+        REBUILD("Panel rebuild"),
+        CLIENT_TASK("Client thread task"),
+        CLIENT_TICK("Client thread/tick");
+
+        private final String label;
+
+        Timer(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return label;
+        }
+    }
+
+    enum Counter {
+        REFRESH_REQUESTS("Refresh requests"),
+        CACHE_INVALIDATIONS("Cache invalidations"),
+        CONFIG_WRITES("Config writes"),
+        BUDGET_OVERRUNS("Over budget"),
+        DEFERRED_TASKS("Deferred tasks"),
+        SUPERSEDED_LOADS("Superseded loads");
+
+        private final String label;
+
+        Counter(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return label;
+        }
+    }
+
+    private final Map<Timer, LatencyHistogram> histograms = new EnumMap<>(Timer.class);
+    private final Map<Counter, AtomicLong> counters = new EnumMap<>(Counter.class);
+
+    @Inject
+    public PluginMetrics() {
+        for (Timer timer : Timer.values()) {
+            histograms.put(timer, new LatencyHistogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new AtomicLong());
+        }
+    }
+
+    /**
+     * Records the time since {@code startNanos}, taken from {@link System#nanoTime()}.
+     */
+    public void recordSince(Timer timer, long startNanos) {
+        record(timer, System.nanoTime() - startNanos);
+    }
+
+    public void record(Timer timer, long nanos) {
+        histograms.get(timer).record(nanos);
+    }
+
+    public void increment(Counter counter) {
+        counters.get(counter).incrementAndGet();
+    }
+
+    LatencyHistogram getHistogram(Timer timer) {
+        return histograms.get(timer);
+    }
+
+    long getCount(Counter counter) {
+        return counters.get(counter).get();
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (AtomicLong counter : counters.values()) {
+            counter.set(0);
+        }
+    }
+
+    /**
+     * Formats all metrics as a table, times in microseconds.
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append(String.format("%-20s %8s %8s %8s %8s %8s%n", "timer (us)", "count", "mean", "p50", "p99", "max"));
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram histogram = histograms.get(timer);
+            sb.append(String.format("%-20s %8d %8d %8d %8d %8d%n", timer.getLabel(), histogram.getCount(),
+                    micros(histogram.getMean()), micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(99)), micros(histogram.getMax())));
+        }
+        for (Counter counter : Counter.values()) {
+            sb.append(String.format("%-20s %8d%n", counter.getLabel(), getCount(counter)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes all metrics to the client log.
+     */
+    public void dumpToLog() {
+        log.info("Prayer Loadouts metrics:\n{}", format());
+    }
+
+    static long micros(long nanos) {
+        return nanos / 1_000;
+    }
+}
@@ -0,0 +1,314 @@
+package com.prayerloadouts;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable prayer order and hidden prayer set for one prayerbook, stored in primitive form.
+ * The order is a short[] permutation of prayer IDs and hidden prayers are a 64-bit mask, so
+ * comparing two layouts is a few word comparisons. Config strings are only built at the edges.
+ * <p>
+ * Anything that does not fit the compact form (an order that does not round-trip through
+ * comma-separated integers, or a hidden entry that is not {@code _<id>=true}) is kept verbatim.
+ */
+final class PrayerLayout {
+    static final String DEFAULT_ORDER = "DEFAULT";
+
+    /**
+     * Layout with no saved order and no hidden prayers.
+     */
+    static final PrayerLayout EMPTY = new PrayerLayout(false, null, null, 0L, null);
+
+    private static final String HIDDEN_VALUE = "true";
+    private static final char HIDDEN_KEY_SEPARATOR = '_';
+
+    /**
+     * Whether an order was saved for this prayerbook. Without one the prayerbook has no data to load.
+     */
+    private final boolean hasOrder;
+
+    /**
+     * Custom order as prayer IDs, or null for the default order (or a verbatim order).
+     */
+    private final short[] order;
+
+    /**
+     * Order string kept verbatim because it cannot be encoded as IDs, otherwise null.
+     */
+    private final String rawOrder;
+
+    /**
+     * Bit n is set if prayer ID n is hidden.
+     */
+    private final long hiddenMask;
+
+    /**
+     * Hidden entries kept verbatim because they do not fit the mask, or null if there are none.
+     */
+    private final Map<String, String> extraHidden;
+
+    private final int hash;
+
+    /**
+     * Cached {@link #fingerprint()}, computed once since layouts are immutable.
+     */
+    private final long fingerprint;
+
+    private PrayerLayout(boolean hasOrder, short[] order, String rawOrder, long hiddenMask,
+            Map<String, String> extraHidden) {
+        this.hasOrder = hasOrder;
+        this.order = order;
+        this.rawOrder = rawOrder;
+        this.hiddenMask = hiddenMask;
+        this.extraHidden = extraHidden;
+        this.hash = Objects.hash(hasOrder, Arrays.hashCode(order), rawOrder, hiddenMask, extraHidden);
+        this.fingerprint = computeFingerprint();
+    }
+
+    /**
+     * Builds a layout from Prayer plugin config values.
+     * @param orderValue Order string, "DEFAULT" for the vanilla order, or null/empty if none is saved
+     * @param hiddenPrayers Hidden prayer key suffix -> value, may be null
+     */
+    static PrayerLayout fromConfig(String orderValue, Map<String, String> hiddenPrayers) {
+        return EMPTY.withOrder(orderValue).withHiddenPrayers(hiddenPrayers);
+    }
+
+    /**
+     * Builds a layout from its compact form.
+     * @param order Prayer IDs, or null for the default order
+     * @param hiddenMask Bit n set if prayer ID n is hidden
+     */
+    static PrayerLayout fromCompact(short[] order, long hiddenMask) {
+        return new PrayerLayout(true, order != null ? order.clone() : null, null, hiddenMask, null);
+    }
+
+    PrayerLayout withOrder(String orderValue) {
+        if (orderValue == null || orderValue.isEmpty()) {
+            return new PrayerLayout(false, null, null, hiddenMask, extraHidden);
+        }
+        if (DEFAULT_ORDER.equals(orderValue)) {
+            return new PrayerLayout(true, null, null, hiddenMask, extraHidden);
+        }
+
+        short[] parsed = parseOrder(orderValue);
+        if (parsed == null) {
+            return new PrayerLayout(true, null, orderValue, hiddenMask, extraHidden);
+        }
+        return new PrayerLayout(true, parsed, null, hiddenMask, extraHidden);
+    }
+
+    PrayerLayout withHiddenPrayers(Map<String, String> hiddenPrayers) {
+        long mask = 0L;
+        Map<String, String> extra = null;
+
+        if (hiddenPrayers != null) {
+            for (Map.Entry<String, String> entry : hiddenPrayers.entrySet()) {
+                int id = parseHiddenKey(entry.getKey());
+                if (id != -1 && HIDDEN_VALUE.equals(entry.getValue())) {
+                    mask |= 1L << id;
+                } else {
+                    if (extra == null) {
+                        extra = new HashMap<>();
+                    }
+                    extra.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return new PrayerLayout(hasOrder, order, rawOrder, mask,
+                extra != null ? Collections.unmodifiableMap(extra) : null);
+    }
+
+    boolean hasOrder() {
+        return hasOrder;
+    }
+
+    boolean isDefaultOrder() {
+        return hasOrder && order == null && rawOrder == null;
+    }
+
+    /**
+     * Gets the order in Prayer plugin config form: "DEFAULT", comma-separated IDs, or null if none is saved.
+     */
+    String getOrderValue() {
+        if (!hasOrder) {
+            return null;
+        }
+        if (rawOrder != null) {
+            return rawOrder;
+        }
+        if (order == null) {
+            return DEFAULT_ORDER;
+        }
+
+        StringBuilder sb = new StringBuilder(order.length * 3);
+        for (int i = 0; i < order.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(order[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Gets the hidden prayers in Prayer plugin config form (key suffix -> value).
+     */
+    Map<String, String> getHiddenPrayers() {
+        Map<String, String> hidden = new HashMap<>();
+        long mask = hiddenMask;
+        while (mask != 0) {
+            int id = Long.numberOfTrailingZeros(mask);
+            hidden.put(HIDDEN_KEY_SEPARATOR + Integer.toString(id), HIDDEN_VALUE);
+            mask &= mask - 1;
+        }
+        if (extraHidden != null) {
+            hidden.putAll(extraHidden);
+        }
+        return hidden;
+    }
+
+    /**
+     * Returns true if nothing is held verbatim, so the layout is fully described by
+     * {@link #getOrderIds()} and {@link #getHiddenMask()}.
+     */
+    boolean isCompact() {
+        return rawOrder == null && extraHidden == null;
+    }
+
+    /**
+     * Gets a copy of the custom order as prayer IDs, or null for the default (or a verbatim) order.
+     */
+    short[] getOrderIds() {
+        return order != null ? order.clone() : null;
+    }
+
+    long getHiddenMask() {
+        return hiddenMask;
+    }
+
+    boolean hasHiddenPrayers() {
+        return hiddenMask != 0 || extraHidden != null;
+    }
+
+    /**
+     * Returns true if the order and hidden prayers match, ignoring whether an order was saved.
+     */
+    boolean sameArrangement(PrayerLayout other) {
+        return sameOrder(other) && sameHiddenPrayers(other);
+    }
+
+    boolean sameOrder(PrayerLayout other) {
+        return Arrays.equals(order, other.order) && Objects.equals(rawOrder, other.rawOrder);
+    }
+
+    boolean sameHiddenPrayers(PrayerLayout other) {
+        return hiddenMask == other.hiddenMask && Objects.equals(extraHidden, other.extraHidden);
+    }
+
+    /**
+     * 64-bit hash of the order and hidden prayers, consistent with {@link #sameArrangement}.
+     */
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    private long computeFingerprint() {
+        long h = 0x9e3779b97f4a7c15L;
+        if (order != null) {
+            for (short id : order) {
+                h = (h ^ id) * 0x100000001b3L;
+            }
+            h = (h ^ order.length) * 0xff51afd7ed558ccdL;
+        }
+        if (rawOrder != null) {
+            h = (h ^ rawOrder.hashCode()) * 0xc4ceb9fe1a85ec53L;
+        }
+        h = (h ^ hiddenMask) * 0xff51afd7ed558ccdL;
+        if (extraHidden != null) {
+            h = (h ^ extraHidden.hashCode()) * 0xc4ceb9fe1a85ec53L;
+        }
+        return h ^ (h >>> 33);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PrayerLayout)) {
+            return false;
+        }
+        PrayerLayout other = (PrayerLayout) o;
+        return hash == other.hash && hasOrder == other.hasOrder && sameArrangement(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Parses a comma-separated list of prayer IDs, or returns null if it would not round-trip exactly.
+     */
+    private static short[] parseOrder(String value) {
+        int count = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == ',') {
+                count++;
+            }
+        }
+
+        short[] ids = new short[count];
+        int index = 0;
+        int current = 0;
+        int digits = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            char c = i < value.length() ? value.charAt(i) : ',';
+            if (c == ',') {
+                if (digits == 0) {
+                    return null;
+                }
+                ids[index++] = (short) current;
+                current = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                // Leading zeros would not survive the round trip
+                if (digits == 1 && current == 0) {
+                    return null;
+                }
+                current = current * 10 + (c - '0');
+                if (current > Short.MAX_VALUE) {
+                    return null;
+                }
+                digits++;
+            } else {
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Parses a hidden prayer key suffix of the form {@code _<id>} with id below 64, or returns -1.
+     */
+    private static int parseHiddenKey(String key) {
+        if (key == null || key.length() < 2 || key.length() > 3 || key.charAt(0) != HIDDEN_KEY_SEPARATOR) {
+            return -1;
+        }
+
+        int id = 0;
+        for (int i = 1; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9' || (i == 1 && c == '0' && key.length() > 2)) {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id < Long.SIZE ? id : -1;
+    }
+}
@@ -0,0 +1,33 @@
+package com.prayerloadouts;
+
+import net.runelite.client.config.Config;
+import net.runelite.client.config.ConfigGroup;
+import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
+
+@ConfigGroup(LoadoutManager.CONFIG_GROUP)
+public interface PrayerLoadoutsConfig extends Config {
+    @ConfigItem(
+            keyName = "clientThreadBudget",
+            name = "Client thread budget",
+            description = "Plugin tasks on the client thread that take longer than this are logged as warnings",
+            position = 0
+    )
+    @Units("µs")
+    @Range(min = 100, max = 16000)
+    default int clientThreadBudget() {
+        return 1000;
+    }
+
+    @ConfigItem(
+            keyName = "deferHeavyWork",
+            name = "Defer heavy work",
+            description = "Move non-critical work, such as writing loadouts to config, off the client thread"
+                    + " once the plugin has used up its budget for the tick",
+            position = 1
+    )
+    default boolean deferHeavyWork() {
+        return true;
+    }
+}
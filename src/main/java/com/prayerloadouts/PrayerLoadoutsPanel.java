@@ -11,6 +11,7 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
 import javax.swing.border.EmptyBorder;
@@ -24,6 +25,10 @@ import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 public class PrayerLoadoutsPanel extends PluginPanel {
@@ -33,8 +38,25 @@ public class PrayerLoadoutsPanel extends PluginPanel {
     private final JPanel savePanel;
     private final JPanel footerSection;
 
-    // Scrollable content (rebuilt on state change)
+    // Scrollable content (updated in place on state change)
     private final JPanel scrollableContent;
+    private final JScrollPane scrollPane;
+
+    // Virtualized list used instead of cards for large libraries (created on first use)
+    private LoadoutListView loadoutListView;
+
+    // Loadout cards keyed by name, in display order
+    private final Map<String, LoadoutCard> cards = new LinkedHashMap<>();
+
+    // Loadouts with an action still running in the background
+    private final Set<String> busyLoadouts = new HashSet<>();
+
+    // Collapsible metrics section in the footer
+    private JPanel diagnosticsBody;
+    private JTextArea diagnosticsText;
+
+    // Info panel currently shown instead of the cards, if any
+    private JPanel shownInfoPanel;
 
     // Reusable info panels
     private final JPanel noLoadoutsPanel;
@@ -61,7 +83,7 @@ public class PrayerLoadoutsPanel extends PluginPanel {
         
         JButton refreshButton = new JButton("↻");
         refreshButton.setToolTipText("Refresh loadout list");
-        refreshButton.addActionListener(e -> rebuild());
+        refreshButton.addActionListener(e -> plugin.refreshPanel());
         buttonsPanel.add(refreshButton);
         
         section.add(buttonsPanel, BorderLayout.EAST);
@@ -108,7 +130,19 @@ public class PrayerLoadoutsPanel extends PluginPanel {
                 }
             }
 
-            plugin.saveLoadoutFromPanel(name);
+            String saved = name;
+            saveButton.setEnabled(false);
+            setBusy(saved, true);
+            plugin.saveLoadoutFromPanel(saved, success -> {
+                saveButton.setEnabled(true);
+                setBusy(saved, false);
+                if (!success) {
+                    JOptionPane.showMessageDialog(this,
+                            "Could not save the loadout.\nMake sure you are logged in and the Prayer plugin is enabled.",
+                            "Save Failed",
+                            JOptionPane.WARNING_MESSAGE);
+                }
+            });
         });
         panel.add(saveButton);
 
@@ -142,20 +176,167 @@ public class PrayerLoadoutsPanel extends PluginPanel {
                     "Import Loadout",
                     JOptionPane.PLAIN_MESSAGE);
             if (name != null) {
-                boolean success = plugin.importLoadoutFromPanel(name.isEmpty() ? null : name);
+                importButton.setEnabled(false);
+                plugin.importLoadoutFromPanel(name.isEmpty() ? null : name, result -> {
+                    importButton.setEnabled(true);
+                    if (!result.isSuccess()) {
+                        JOptionPane.showMessageDialog(this,
+                                result.getError(),
+                                "Import Failed",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                });
+            }
+        });
+        section.add(importButton, BorderLayout.CENTER);
+
+        // Whole-library transfer as a single compressed bundle
+        JPanel bundlePanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        bundlePanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        bundlePanel.setBorder(new EmptyBorder(5, 0, 0, 0));
+
+        JButton exportAllButton = new JButton("Export All");
+        exportAllButton.setToolTipText("Copy all loadouts to clipboard as one bundle");
+        exportAllButton.addActionListener(e -> {
+            exportAllButton.setEnabled(false);
+            plugin.exportAllFromPanel(success -> {
+                exportAllButton.setEnabled(true);
                 if (!success) {
                     JOptionPane.showMessageDialog(this,
-                            "Invalid clipboard data. Make sure you copied a valid loadout export.",
-                            "Import Failed",
-                            JOptionPane.ERROR_MESSAGE);
+                            "There are no loadouts with data to export.",
+                            "Export Failed",
+                            JOptionPane.WARNING_MESSAGE);
                 }
-            }
+            });
         });
-        section.add(importButton, BorderLayout.CENTER);
+        bundlePanel.add(exportAllButton);
+
+        JButton importAllButton = new JButton("Import All");
+        importAllButton.setToolTipText("Import a bundle of loadouts from clipboard");
+        importAllButton.addActionListener(e -> importBundle(importAllButton));
+        bundlePanel.add(importAllButton);
+
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        southPanel.add(bundlePanel, BorderLayout.NORTH);
+        southPanel.add(createDiagnosticsSection(), BorderLayout.SOUTH);
+        section.add(southPanel, BorderLayout.SOUTH);
 
         return section;
     }
 
+    /**
+     * Collapsible metrics table, refreshed on every rebuild while it is expanded.
+     */
+    private JPanel createDiagnosticsSection() {
+        JPanel section = new JPanel(new BorderLayout());
+        section.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        section.setBorder(new EmptyBorder(5, 0, 0, 0));
+
+        JButton toggleButton = new JButton("Diagnostics ▸");
+        toggleButton.setToolTipText("Show timings and counters");
+        section.add(toggleButton, BorderLayout.NORTH);
+
+        diagnosticsText = new JTextArea();
+        diagnosticsText.setEditable(false);
+        diagnosticsText.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 10));
+        diagnosticsText.setForeground(Color.LIGHT_GRAY);
+        diagnosticsText.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+
+        JScrollPane textScroll = new JScrollPane(diagnosticsText);
+        textScroll.setBorder(new EmptyBorder(5, 0, 5, 0));
+        textScroll.setPreferredSize(new Dimension(0, 150));
+
+        JPanel buttons = new JPanel(new GridLayout(1, 3, 5, 0));
+        buttons.setBackground(ColorScheme.DARK_GRAY_COLOR);
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> updateDiagnostics());
+        buttons.add(refreshButton);
+
+        JButton logButton = new JButton("Log");
+        logButton.setToolTipText("Write the metrics to the client log");
+        logButton.addActionListener(e -> plugin.dumpMetricsToLog());
+        buttons.add(logButton);
+
+        JButton resetButton = new JButton("Reset");
+        resetButton.setToolTipText("Clear all metrics");
+        resetButton.addActionListener(e -> {
+            plugin.resetMetrics();
+            updateDiagnostics();
+        });
+        buttons.add(resetButton);
+
+        diagnosticsBody = new JPanel(new BorderLayout());
+        diagnosticsBody.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        diagnosticsBody.add(textScroll, BorderLayout.CENTER);
+        diagnosticsBody.add(buttons, BorderLayout.SOUTH);
+        diagnosticsBody.setVisible(false);
+        section.add(diagnosticsBody, BorderLayout.CENTER);
+
+        toggleButton.addActionListener(e -> {
+            boolean expand = !diagnosticsBody.isVisible();
+            toggleButton.setText(expand ? "Diagnostics ▾" : "Diagnostics ▸");
+            diagnosticsBody.setVisible(expand);
+            updateDiagnostics();
+            revalidate();
+        });
+
+        return section;
+    }
+
+    private void updateDiagnostics() {
+        if (diagnosticsBody.isVisible()) {
+            diagnosticsText.setText(plugin.getMetricsSummary());
+            diagnosticsText.setCaretPosition(0);
+        }
+    }
+
+    private void importBundle(JButton importAllButton) {
+        Object[] options = {"Rename", "Overwrite", "Skip", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(this,
+                "How should loadouts with names that already exist be imported?",
+                "Import All",
+                JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                options,
+                options[0]);
+
+        LoadoutSerializer.ConflictPolicy policy;
+        switch (choice) {
+            case 0:
+                policy = LoadoutSerializer.ConflictPolicy.RENAME;
+                break;
+            case 1:
+                policy = LoadoutSerializer.ConflictPolicy.OVERWRITE;
+                break;
+            case 2:
+                policy = LoadoutSerializer.ConflictPolicy.SKIP;
+                break;
+            default:
+                return;
+        }
+
+        importAllButton.setEnabled(false);
+        plugin.importBundleFromPanel(policy, result -> {
+            importAllButton.setEnabled(true);
+            if (result == null) {
+                JOptionPane.showMessageDialog(this,
+                        "Invalid clipboard data. Make sure you copied a valid bundle from 'Export All'.",
+                        "Import Failed",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            String message = "Imported " + result.getImported() + " loadout(s).";
+            if (result.getSkipped() > 0) {
+                message += "\nSkipped " + result.getSkipped() + " with existing names.";
+            }
+            JOptionPane.showMessageDialog(this, message, "Import All", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
     /**
      * Creates a centered info panel with optional icon, title, and description.
      * Used for status messages like "Login Required", "No loadouts", etc.
@@ -197,55 +378,76 @@ public class PrayerLoadoutsPanel extends PluginPanel {
         return panel;
     }
 
+    // ========== Loadout Actions ==========
+
     /**
-     * Creates a loadout card panel with name, load button, and action buttons.
+     * Actions available on each loadout, shared by the cards and the virtualized list.
      */
-    private static final Color ACTIVE_COLOR = new Color(0, 100, 0);
-    private static final Color ACTIVE_HOVER_COLOR = new Color(0, 130, 0);
-
-    private JPanel createLoadoutPanel(String name, boolean isActive) {
-        final Color bgColor = isActive ? ACTIVE_COLOR : ColorScheme.DARKER_GRAY_COLOR;
-        final Color hoverColor = isActive ? ACTIVE_HOVER_COLOR : ColorScheme.DARKER_GRAY_HOVER_COLOR;
+    enum CardAction {
+        LOAD,
+        EXPORT,
+        RENAME,
+        DELETE
+    }
 
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-        panel.setBackground(bgColor);
-        panel.setBorder(new EmptyBorder(8, 10, 8, 10));
-        panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 70));
+    private void performAction(CardAction action, String name) {
+        // Ignore clicks until the previous action on this loadout has finished
+        if (busyLoadouts.contains(name)) {
+            return;
+        }
 
-        String displayName = isActive ? "● " + name : name;
-        JLabel nameLabel = new JLabel(displayName);
-        nameLabel.setForeground(isActive ? new Color(144, 238, 144) : Color.WHITE);
-        nameLabel.setFont(FontManager.getRunescapeFont());
-        nameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        panel.add(nameLabel);
+        switch (action) {
+            case LOAD:
+                loadLoadout(name);
+                break;
+            case EXPORT:
+                exportLoadout(name);
+                break;
+            case RENAME:
+                renameLoadout(name);
+                break;
+            case DELETE:
+                deleteLoadout(name);
+                break;
+        }
+    }
 
-        panel.add(Box.createRigidArea(new Dimension(0, 5)));
+    /**
+     * Marks a loadout as having an action running, which disables its buttons and dims its card.
+     */
+    private void setBusy(String name, boolean busy) {
+        if (busy ? !busyLoadouts.add(name) : !busyLoadouts.remove(name)) {
+            return;
+        }
 
-        JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 3, 0));
-        buttonsPanel.setBackground(bgColor);
-        buttonsPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        LoadoutCard card = cards.get(name);
+        if (card != null) {
+            card.updateBusy();
+        }
+        if (loadoutListView != null) {
+            loadoutListView.repaintLoadout(name);
+        }
+    }
 
-        JButton loadButton = new JButton("Load");
-        loadButton.setBackground(ColorScheme.BRAND_ORANGE);
-        loadButton.setToolTipText("Load this prayer arrangement");
-        loadButton.addActionListener(e -> {
-            // Async load - callback handles success/failure
-            plugin.loadLoadoutFromPanel(name, success -> {
-                if (!success) {
-                    JOptionPane.showMessageDialog(this,
-                            "This loadout has no data for your current prayerbook.\nTry saving it again.",
-                            "Load Failed",
-                            JOptionPane.WARNING_MESSAGE);
-                }
-            });
+    private void loadLoadout(String name) {
+        // Async load - callback handles success/failure
+        setBusy(name, true);
+        plugin.loadLoadoutFromPanel(name, result -> {
+            setBusy(name, false);
+            // A superseded load was replaced by a newer click and needs no feedback
+            if (result == LoadRequestQueue.LoadResult.NO_DATA) {
+                JOptionPane.showMessageDialog(this,
+                        "This loadout has no data for your current prayerbook.\nTry saving it again.",
+                        "Load Failed",
+                        JOptionPane.WARNING_MESSAGE);
+            }
         });
-        buttonsPanel.add(loadButton);
+    }
 
-        JButton exportButton = new JButton("📋");
-        exportButton.setToolTipText("Copy to clipboard");
-        exportButton.addActionListener(e -> {
-            boolean success = plugin.exportLoadoutFromPanel(name);
+    private void exportLoadout(String name) {
+        setBusy(name, true);
+        plugin.exportLoadoutFromPanel(name, success -> {
+            setBusy(name, false);
             if (!success) {
                 JOptionPane.showMessageDialog(this,
                         "This loadout has no data to export.\nTry saving it again.",
@@ -253,64 +455,177 @@ public class PrayerLoadoutsPanel extends PluginPanel {
                         JOptionPane.WARNING_MESSAGE);
             }
         });
-        buttonsPanel.add(exportButton);
-
-        JButton renameButton = new JButton("✏");
-        renameButton.setToolTipText("Rename this loadout");
-        renameButton.addActionListener(e -> {
-            String newName = (String) JOptionPane.showInputDialog(
-                    this,
-                    "Enter new name for '" + name + "':",
-                    "Rename Loadout",
-                    JOptionPane.PLAIN_MESSAGE,
-                    null,
-                    null,
-                    name);
-            if (newName != null && !newName.trim().isEmpty() && !newName.equals(name)) {
-                newName = newName.trim();
-                if (plugin.getLoadoutNames().contains(newName)) {
-                    JOptionPane.showMessageDialog(this,
-                            "A loadout named '" + newName + "' already exists.",
-                            "Name Already Exists",
-                            JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                plugin.renameLoadoutFromPanel(name, newName);
-            }
-        });
-        buttonsPanel.add(renameButton);
+    }
 
-        JButton deleteButton = new JButton("🗑");
-        deleteButton.setForeground(ColorScheme.PROGRESS_ERROR_COLOR);
-        deleteButton.setToolTipText("Delete this loadout");
-        deleteButton.addActionListener(e -> {
-            int confirm = JOptionPane.showConfirmDialog(this,
-                    "Delete loadout '" + name + "'?",
-                    "Confirm Delete",
-                    JOptionPane.YES_NO_OPTION);
-            if (confirm == JOptionPane.YES_OPTION) {
-                plugin.deleteLoadoutFromPanel(name);
+    private void renameLoadout(String name) {
+        String newName = (String) JOptionPane.showInputDialog(
+                this,
+                "Enter new name for '" + name + "':",
+                "Rename Loadout",
+                JOptionPane.PLAIN_MESSAGE,
+                null,
+                null,
+                name);
+        if (newName != null && !newName.trim().isEmpty() && !newName.equals(name)) {
+            newName = newName.trim();
+            if (plugin.getLoadoutNames().contains(newName)) {
+                JOptionPane.showMessageDialog(this,
+                        "A loadout named '" + newName + "' already exists.",
+                        "Name Already Exists",
+                        JOptionPane.ERROR_MESSAGE);
+                return;
             }
-        });
-        buttonsPanel.add(deleteButton);
+            setBusy(name, true);
+            plugin.renameLoadoutFromPanel(name, newName, () -> setBusy(name, false));
+        }
+    }
+
+    private void deleteLoadout(String name) {
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "Delete loadout '" + name + "'?",
+                "Confirm Delete",
+                JOptionPane.YES_NO_OPTION);
+        if (confirm == JOptionPane.YES_OPTION) {
+            setBusy(name, true);
+            plugin.deleteLoadoutFromPanel(name, () -> setBusy(name, false));
+        }
+    }
+
+    // ========== Loadout Cards ==========
+
+    // Above this many loadouts the panel switches to the virtualized list
+    private static final int VIRTUAL_LIST_THRESHOLD = 100;
+
+    private static final Color ACTIVE_COLOR = new Color(0, 100, 0);
+    private static final Color ACTIVE_HOVER_COLOR = new Color(0, 130, 0);
+    static final Color ACTIVE_NAME_COLOR = new Color(144, 238, 144);
+
+    static String cardLabel(String name, boolean active, boolean busy) {
+        String label = active ? "● " + name : name;
+        return busy ? label + " …" : label;
+    }
+
+    static Color cardLabelColor(boolean active, boolean busy) {
+        if (busy) {
+            return Color.GRAY;
+        }
+        return active ? ACTIVE_NAME_COLOR : Color.WHITE;
+    }
 
-        panel.add(buttonsPanel);
+    static Color cardColor(boolean active, boolean hovered) {
+        if (active) {
+            return hovered ? ACTIVE_HOVER_COLOR : ACTIVE_COLOR;
+        }
+        return hovered ? ColorScheme.DARKER_GRAY_HOVER_COLOR : ColorScheme.DARKER_GRAY_COLOR;
+    }
+
+    /**
+     * A loadout card with name, load button, and action buttons.
+     * Cards are kept across rebuilds and only their active highlight is updated in place.
+     */
+    private final class LoadoutCard {
+        private final String name;
+        private final JPanel panel;
+        private final JPanel buttonsPanel;
+        private final JLabel nameLabel;
+        private final Component spacer;
+        private boolean active;
+        private boolean hovered;
+        private boolean busy;
+
+        LoadoutCard(String name, boolean active) {
+            this.name = name;
+            this.active = active;
+
+            panel = new JPanel();
+            panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+            panel.setBorder(new EmptyBorder(8, 10, 8, 10));
+            panel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 70));
+
+            nameLabel = new JLabel();
+            nameLabel.setFont(FontManager.getRunescapeFont());
+            nameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+            panel.add(nameLabel);
+
+            panel.add(Box.createRigidArea(new Dimension(0, 5)));
+
+            buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 3, 0));
+            buttonsPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+            JButton loadButton = new JButton("Load");
+            loadButton.setBackground(ColorScheme.BRAND_ORANGE);
+            loadButton.setToolTipText("Load this prayer arrangement");
+            loadButton.addActionListener(e -> performAction(CardAction.LOAD, name));
+            buttonsPanel.add(loadButton);
+
+            JButton exportButton = new JButton("📋");
+            exportButton.setToolTipText("Copy to clipboard");
+            exportButton.addActionListener(e -> performAction(CardAction.EXPORT, name));
+            buttonsPanel.add(exportButton);
+
+            JButton renameButton = new JButton("✏");
+            renameButton.setToolTipText("Rename this loadout");
+            renameButton.addActionListener(e -> performAction(CardAction.RENAME, name));
+            buttonsPanel.add(renameButton);
+
+            JButton deleteButton = new JButton("🗑");
+            deleteButton.setForeground(ColorScheme.PROGRESS_ERROR_COLOR);
+            deleteButton.setToolTipText("Delete this loadout");
+            deleteButton.addActionListener(e -> performAction(CardAction.DELETE, name));
+            buttonsPanel.add(deleteButton);
+
+            panel.add(buttonsPanel);
+
+            panel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseEntered(MouseEvent e) {
+                    hovered = true;
+                    updateColors();
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    hovered = false;
+                    updateColors();
+                }
+            });
+
+            spacer = Box.createRigidArea(new Dimension(0, 5));
 
-        panel.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseEntered(MouseEvent e) {
-                panel.setBackground(hoverColor);
-                buttonsPanel.setBackground(hoverColor);
+            updateBusy();
+            updateColors();
+        }
+
+        void setActive(boolean active) {
+            if (this.active == active) {
+                return;
             }
+            this.active = active;
+            updateNameLabel();
+            updateColors();
+        }
 
-            @Override
-            public void mouseExited(MouseEvent e) {
-                panel.setBackground(bgColor);
-                buttonsPanel.setBackground(bgColor);
+        /**
+         * Brings the buttons and name in line with whether the loadout is busy.
+         */
+        void updateBusy() {
+            busy = busyLoadouts.contains(name);
+            for (Component button : buttonsPanel.getComponents()) {
+                button.setEnabled(!busy);
             }
-        });
+            updateNameLabel();
+        }
 
-        return panel;
+        private void updateNameLabel() {
+            nameLabel.setText(cardLabel(name, active, busy));
+            nameLabel.setForeground(cardLabelColor(active, busy));
+        }
+
+        private void updateColors() {
+            Color color = cardColor(active, hovered);
+            panel.setBackground(color);
+            buttonsPanel.setBackground(color);
+        }
     }
 
     // ========== Constructor ==========
@@ -357,7 +672,7 @@ public class PrayerLoadoutsPanel extends PluginPanel {
         scrollableContent.setLayout(new BoxLayout(scrollableContent, BoxLayout.Y_AXIS));
         scrollableContent.setBorder(new EmptyBorder(5, 10, 5, 10));
 
-        JScrollPane scrollPane = new JScrollPane(scrollableContent);
+        scrollPane = new JScrollPane(scrollableContent);
         scrollPane.setBorder(null);
         scrollPane.getVerticalScrollBar().setPreferredSize(new Dimension(8, 0));
         scrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
@@ -377,9 +692,6 @@ public class PrayerLoadoutsPanel extends PluginPanel {
     // ========== Rebuild Logic ==========
 
     public void rebuild() {
-        // Only clear and rebuild the scrollable content - header and footer stay intact
-        scrollableContent.removeAll();
-
         boolean isLoggedIn = plugin.isLoggedIn();
         boolean isPrayerPluginEnabled = plugin.isPrayerPluginEnabled();
         boolean canUsePlugin = isLoggedIn && isPrayerPluginEnabled;
@@ -389,28 +701,126 @@ public class PrayerLoadoutsPanel extends PluginPanel {
         footerSection.setVisible(canUsePlugin);
 
         if (!isPrayerPluginEnabled) {
-            scrollableContent.add(prayerPluginRequiredPanel);
+            showInfoPanel(prayerPluginRequiredPanel);
         } else if (!isLoggedIn) {
-            scrollableContent.add(loginRequiredPanel);
+            showInfoPanel(loginRequiredPanel);
         } else {
             Set<String> loadoutNames = plugin.getLoadoutNames();
             String activeLoadout = plugin.getActiveLoadoutName();
 
             if (loadoutNames.isEmpty()) {
-                scrollableContent.add(noLoadoutsPanel);
+                showInfoPanel(noLoadoutsPanel);
+            } else if (loadoutNames.size() > VIRTUAL_LIST_THRESHOLD) {
+                showLoadoutList(loadoutNames, activeLoadout);
+            } else {
+                showLoadouts(loadoutNames, activeLoadout);
+            }
+        }
+
+        updateDiagnostics();
+    }
+
+    /**
+     * Replaces the scrollable content with a single info panel, unless it is already shown.
+     */
+    private void showInfoPanel(JPanel infoPanel) {
+        showScrollableContent();
+        if (shownInfoPanel == infoPanel) {
+            return;
+        }
+
+        scrollableContent.removeAll();
+        cards.clear();
+        scrollableContent.add(infoPanel);
+        shownInfoPanel = infoPanel;
+        refreshLayout();
+    }
+
+    /**
+     * Brings the loadout cards in line with the given names, reusing existing cards.
+     * Only added, removed or reordered cards cause a relayout; active highlight changes are applied in place.
+     */
+    private void showLoadouts(Set<String> loadoutNames, String activeLoadout) {
+        showScrollableContent();
+        boolean structureChanged = false;
+
+        if (shownInfoPanel != null) {
+            scrollableContent.removeAll();
+            shownInfoPanel = null;
+            structureChanged = true;
+        }
+
+        // Drop cards for loadouts that no longer exist
+        Iterator<Map.Entry<String, LoadoutCard>> it = cards.entrySet().iterator();
+        while (it.hasNext()) {
+            LoadoutCard card = it.next().getValue();
+            if (!loadoutNames.contains(card.name)) {
+                scrollableContent.remove(card.panel);
+                scrollableContent.remove(card.spacer);
+                it.remove();
+                structureChanged = true;
+            }
+        }
+
+        // Create cards for new loadouts and update the highlight of existing ones
+        boolean orderChanged = structureChanged || cards.size() != loadoutNames.size();
+        Iterator<String> existingOrder = cards.keySet().iterator();
+        Map<String, LoadoutCard> ordered = new LinkedHashMap<>();
+        for (String name : loadoutNames) {
+            boolean isActive = name.equals(activeLoadout);
+            LoadoutCard card = cards.get(name);
+            if (card == null) {
+                card = new LoadoutCard(name, isActive);
+                orderChanged = true;
             } else {
-                for (String name : loadoutNames) {
-                    boolean isActive = name.equals(activeLoadout);
-                    scrollableContent.add(createLoadoutPanel(name, isActive));
-                    scrollableContent.add(Box.createRigidArea(new Dimension(0, 5)));
+                card.setActive(isActive);
+                if (!orderChanged && !name.equals(existingOrder.next())) {
+                    orderChanged = true;
                 }
             }
+            ordered.put(name, card);
+        }
+
+        if (orderChanged) {
+            scrollableContent.removeAll();
+            for (LoadoutCard card : ordered.values()) {
+                scrollableContent.add(card.panel);
+                scrollableContent.add(card.spacer);
+            }
+            cards.clear();
+            cards.putAll(ordered);
+            refreshLayout();
         }
+        // Otherwise only highlights changed, and setBackground already repaints the affected cards
+    }
+
+    /**
+     * Shows the loadouts in the virtualized list, which only renders the visible rows.
+     */
+    private void showLoadoutList(Set<String> loadoutNames, String activeLoadout) {
+        if (loadoutListView == null) {
+            loadoutListView = new LoadoutListView(this::performAction, busyLoadouts::contains);
+        }
+
+        if (scrollPane.getViewport().getView() != loadoutListView) {
+            // Release the cards, the list does not need them
+            scrollableContent.removeAll();
+            cards.clear();
+            shownInfoPanel = null;
+            scrollPane.setViewportView(loadoutListView);
+        }
+
+        loadoutListView.update(loadoutNames, activeLoadout);
+    }
+
+    private void showScrollableContent() {
+        if (scrollPane.getViewport().getView() != scrollableContent) {
+            scrollPane.setViewportView(scrollableContent);
+        }
+    }
 
-        // Refresh the UI
+    private void refreshLayout() {
         scrollableContent.revalidate();
         scrollableContent.repaint();
-        revalidate();
-        repaint();
     }
 }
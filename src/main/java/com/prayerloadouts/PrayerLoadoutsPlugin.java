@@ -1,14 +1,21 @@
 package com.prayerloadouts;
 
+import com.google.inject.Provides;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.Skill;
 import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
 import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.gameval.VarbitID;
-import net.runelite.client.callback.ClientThread;
+import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ClientShutdown;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.events.ConfigSync;
 import net.runelite.client.events.PluginChanged;
+import net.runelite.client.events.ProfileChanged;
 import net.runelite.client.game.SkillIconManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDependency;
@@ -18,11 +25,12 @@ import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
 
 import javax.inject.Inject;
+import javax.swing.SwingUtilities;
 import java.awt.image.BufferedImage;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @PluginDependency(PrayerPlugin.class)
 @PluginDescriptor(name = "Prayer Loadouts", description = "Save and load named prayer book arrangements", tags = {
@@ -32,9 +40,6 @@ public class PrayerLoadoutsPlugin extends Plugin {
     @Inject
     private Client client;
 
-    @Inject
-    private ClientThread clientThread;
-
     @Inject
     private ClientToolbar clientToolbar;
 
@@ -53,14 +58,34 @@ public class PrayerLoadoutsPlugin extends Plugin {
     @Inject
     private ScheduledExecutorService executor;
 
+    @Inject
+    private PanelRefreshScheduler refreshScheduler;
+
+    @Inject
+    private AutoLoadTrigger autoLoadTrigger;
+
+    @Inject
+    private PluginMetrics metrics;
+
+    @Inject
+    private ClientThreadWatchdog watchdog;
+
+    @Inject
+    private LoadRequestQueue loadRequestQueue;
+
     private PrayerLoadoutsPanel panel;
     private NavigationButton navButton;
     private volatile boolean loggedIn = false;
 
+    @Provides
+    PrayerLoadoutsConfig provideConfig(ConfigManager configManager) {
+        return configManager.getConfig(PrayerLoadoutsConfig.class);
+    }
+
     @Override
     protected void startUp() {
         // Check initial login state and update cache if already logged in
-        clientThread.invokeLater(() -> {
+        watchdog.invokeLater("start up", () -> {
             loggedIn = client.getGameState() == GameState.LOGGED_IN;
             if (loggedIn) {
                 loadoutManager.updateCachedFilters();
@@ -69,6 +94,7 @@ public class PrayerLoadoutsPlugin extends Plugin {
 
         // Create and register the panel
         panel = new PrayerLoadoutsPanel(this);
+        refreshScheduler.setPanel(panel);
         final BufferedImage icon = skillIconManager.getSkillImage(Skill.PRAYER);
         navButton = NavigationButton.builder()
                 .tooltip("Prayer Loadouts")
@@ -81,6 +107,11 @@ public class PrayerLoadoutsPlugin extends Plugin {
 
     @Override
     protected void shutDown() {
+        // Write loadout changes still waiting for their quiet period
+        loadoutManager.flush();
+
+        autoLoadTrigger.cancel();
+        refreshScheduler.setPanel(null);
         clientToolbar.removeNavigation(navButton);
         panel = null;
         navButton = null;
@@ -93,33 +124,60 @@ public class PrayerLoadoutsPlugin extends Plugin {
         loggedIn = (state == GameState.LOGGED_IN);
 
         if (wasLoggedIn != loggedIn) {
-            refreshPanel();
+            watchdog.run("game state change", () -> onLoginChanged(state));
+        }
+    }
 
-            // Auto-load last loadout on login (delayed to allow game to fully load)
-            if (loggedIn) {
-                executor.schedule(() -> clientThread.invokeLater(() -> {
-                    // Update cache first to get current state
-                    loadoutManager.updateCachedFilters();
-
-                    String lastLoadout = loadoutManager.getLastLoadoutName();
-                    if (lastLoadout != null && !lastLoadout.isEmpty()
-                            && loadoutManager.getLoadoutNames().contains(lastLoadout)) {
-                        // Pass callback to refresh panel after cache is updated
-                        boolean success = loadoutManager.loadLoadout(lastLoadout, this::refreshPanel);
-                        if (!success) {
-                            // Refresh panel even if load failed (cache already updated above)
-                            refreshPanel();
-                        }
-                        // Panel is refreshed via callback if load succeeded
-                    } else {
-                        // No loadout to load, just refresh panel
-                        refreshPanel();
-                    }
-                }), 2, TimeUnit.SECONDS);
+    private void onLoginChanged(GameState state) {
+        refreshPanel();
+
+        if (!loggedIn) {
+            autoLoadTrigger.cancel();
+        }
+
+        // Persist pending loadout changes when the session ends, off the client thread if it is busy.
+        // Loading screens and world hops keep the session, so they leave writes to the quiet period.
+        if (state == GameState.LOGIN_SCREEN || state == GameState.CONNECTION_LOST) {
+            watchdog.runDeferrable("write loadouts", PluginMetrics.Timer.FLUSH, loadoutManager::flush);
+        }
+
+        // Auto-load last loadout on login, once the prayerbook is ready
+        if (loggedIn) {
+            autoLoadTrigger.arm(() -> watchdog.run("auto-load", this::autoLoadLastLoadout));
+        }
+    }
+
+    private void autoLoadLastLoadout() {
+        // Update cache first to get current state
+        loadoutManager.updateCachedFilters();
+
+        String lastLoadout = loadoutManager.getLastLoadoutName();
+        if (lastLoadout != null && !lastLoadout.isEmpty()
+                && loadoutManager.getLoadoutNames().contains(lastLoadout)) {
+            // Pass callback to refresh panel after cache is updated
+            boolean success = loadoutManager.loadLoadout(lastLoadout, this::refreshPanel);
+            if (!success) {
+                // Refresh panel even if load failed (cache already updated above)
+                refreshPanel();
             }
+            // Panel is refreshed via callback if load succeeded
+        } else {
+            // No loadout to load, just refresh panel
+            refreshPanel();
         }
     }
 
+    @Subscribe
+    public void onGameTick(GameTick event) {
+        watchdog.onGameTick();
+        autoLoadTrigger.onGameTick();
+    }
+
+    @Subscribe
+    public void onWidgetLoaded(WidgetLoaded event) {
+        autoLoadTrigger.onWidgetLoaded(event.getGroupId());
+    }
+
     @Subscribe
     public void onPluginChanged(PluginChanged event) {
         // Refresh the panel when the Prayer plugin is enabled or disabled
@@ -128,22 +186,57 @@ public class PrayerLoadoutsPlugin extends Plugin {
         }
     }
 
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event) {
+        // Keep the tracked hidden prayers and the layout used for active detection in step with the Prayer plugin
+        prayerStateManager.onConfigChanged(event);
+        if (LoadoutManager.PRAYER_CONFIG_GROUP.equals(event.getGroup()) && loadoutManager.updateCachedLayout()) {
+            refreshPanel();
+        }
+
+        // Drop decoded loadouts if they were edited outside the plugin
+        if (loadoutManager.onConfigChanged(event)) {
+            refreshPanel();
+        }
+    }
+
+    @Subscribe
+    public void onConfigSync(ConfigSync event) {
+        // Posted before config is saved, including just before a profile switch, while the old profile is active
+        loadoutManager.flush();
+    }
+
+    @Subscribe
+    public void onClientShutdown(ClientShutdown event) {
+        // Closing the client does not shut the plugin down, so write pending changes before it exits
+        event.waitFor(executor.submit(loadoutManager::flush));
+    }
+
+    @Subscribe
+    public void onProfileChanged(ProfileChanged event) {
+        // A different profile has its own loadouts and Prayer plugin settings
+        loadoutManager.onProfileChanged();
+        prayerStateManager.invalidate();
+        loadoutManager.updateCachedLayout();
+        refreshPanel();
+    }
+
     @Subscribe
     public void onVarbitChanged(VarbitChanged event) {
         int varbitId = event.getVarbitId();
 
-        // Update cache when filter varbits change (keeps active loadout detection accurate)
-        if (varbitId == VarbitID.PRAYER_FILTER_BLOCKLOWTIER ||
+        // Update cache when the prayerbook or filter varbits change (keeps active loadout detection accurate).
+        // Loading a loadout sets all six filters in a row, so the panel refresh is coalesced.
+        if (varbitId == VarbitID.PRAYERBOOK ||
+            varbitId == VarbitID.PRAYER_FILTER_BLOCKLOWTIER ||
             varbitId == VarbitID.PRAYER_FILTER_ALLOWCOMBINEDTIER ||
             varbitId == VarbitID.PRAYER_FILTER_BLOCKHEALING ||
             varbitId == VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL ||
             varbitId == VarbitID.PRAYER_FILTER_BLOCKLOCKED ||
             varbitId == VarbitID.PRAYER_HIDEFILTERBUTTON) {
 
-            clientThread.invokeLater(() -> {
-                loadoutManager.updateCachedFilters();
-                refreshPanel();
-            });
+            loadoutManager.updateCachedFilters();
+            refreshPanel();
         }
     }
 
@@ -163,67 +256,146 @@ public class PrayerLoadoutsPlugin extends Plugin {
         return loadoutManager.getActiveLoadoutName(loggedIn);
     }
 
-    public void saveLoadoutFromPanel(String name) {
-        clientThread.invokeLater(() -> {
-            loadoutManager.saveLoadout(name);
+    /**
+     * Saves the current arrangement under a name. Calls the optional callback on the Swing EDT with true once
+     * the loadout is published, or false if it could not be saved (logged out or Prayer plugin disabled).
+     */
+    public void saveLoadoutFromPanel(String name, Consumer<Boolean> callback) {
+        watchdog.invokeLater("save", () -> {
+            // The panel is refreshed once the loadout is published
+            boolean started = loadoutManager.saveLoadout(name, () -> {
+                refreshPanel();
+                if (callback != null) {
+                    SwingUtilities.invokeLater(() -> callback.accept(true));
+                }
+            });
             loadoutManager.updateCachedFilters();
-            refreshPanel();
+            if (!started && callback != null) {
+                SwingUtilities.invokeLater(() -> callback.accept(false));
+            }
         });
     }
 
     /**
-     * Loads a loadout asynchronously. Calls the callback with true on success, false on failure.
-     * This method does not block the Swing EDT.
+     * Loads a loadout asynchronously through the load queue, so rapid clicks only apply the newest loadout.
+     * Calls the callback on the Swing EDT with the result. This method does not block the Swing EDT.
      */
-    public void loadLoadoutFromPanel(String name, Consumer<Boolean> callback) {
-        clientThread.invokeLater(() -> {
-            boolean success = loadoutManager.loadLoadout(name, this::refreshPanel);
-            if (!success) {
-                // Refresh panel even on failure
-                refreshPanel();
-            }
-            // Notify the caller of the result on the Swing EDT
-            if (callback != null) {
-                javax.swing.SwingUtilities.invokeLater(() -> callback.accept(success));
-            }
-        });
+    public void loadLoadoutFromPanel(String name, Consumer<LoadRequestQueue.LoadResult> callback) {
+        loadRequestQueue.submit(name, callback == null ? null
+                : result -> SwingUtilities.invokeLater(() -> callback.accept(result)));
     }
 
-    public boolean exportLoadoutFromPanel(String name) {
-        return loadoutSerializer.exportLoadout(name);
+    /**
+     * Exports a loadout to clipboard in the background. Calls the callback on the Swing EDT with true on
+     * success, false if the loadout has no data.
+     */
+    public void exportLoadoutFromPanel(String name, Consumer<Boolean> callback) {
+        runInBackground(() -> loadoutSerializer.exportLoadout(name), false, callback);
     }
 
-    public void deleteLoadoutFromPanel(String name) {
-        loadoutManager.deleteLoadout(name);
-        refreshPanel();
+    /**
+     * Deletes a loadout in the background. Calls the callback on the Swing EDT once it is gone.
+     */
+    public void deleteLoadoutFromPanel(String name, Runnable callback) {
+        runInBackground(() -> {
+            loadoutManager.deleteLoadout(name);
+            refreshPanel();
+            return null;
+        }, null, callback == null ? null : ignored -> callback.run());
     }
 
-    public void renameLoadoutFromPanel(String oldName, String newName) {
-        loadoutManager.renameLoadout(oldName, newName);
-        refreshPanel();
+    /**
+     * Renames a loadout in the background. Calls the callback on the Swing EDT once it is renamed.
+     */
+    public void renameLoadoutFromPanel(String oldName, String newName, Runnable callback) {
+        runInBackground(() -> {
+            loadoutManager.renameLoadout(oldName, newName);
+            refreshPanel();
+            return null;
+        }, null, callback == null ? null : ignored -> callback.run());
     }
 
-    public boolean importLoadoutFromPanel(String name) {
-        boolean success = loadoutSerializer.importLoadout(name);
-        refreshPanel();
-        return success;
+    /**
+     * Imports a loadout from clipboard in the background. Calls the callback on the Swing EDT with the
+     * result, which explains why the clipboard does not hold a valid loadout if the import failed.
+     */
+    public void importLoadoutFromPanel(String name, Consumer<LoadoutSerializer.ImportResult> callback) {
+        runInBackground(() -> {
+            LoadoutSerializer.ImportResult result = loadoutSerializer.importLoadout(name);
+            refreshPanel();
+            return result;
+        }, LoadoutSerializer.ImportResult.INVALID, callback);
+    }
+
+    /**
+     * Exports all loadouts to clipboard as one bundle in the background. Calls the callback on the Swing EDT
+     * with true on success, false if no loadout has data.
+     */
+    public void exportAllFromPanel(Consumer<Boolean> callback) {
+        runInBackground(() -> loadoutSerializer.exportBundle(null), false, callback);
+    }
+
+    /**
+     * Imports a bundle from clipboard in the background. Calls the callback on the Swing EDT with the result,
+     * or null if the clipboard does not hold a valid bundle.
+     */
+    public void importBundleFromPanel(LoadoutSerializer.ConflictPolicy policy,
+            Consumer<LoadoutSerializer.BundleImportResult> callback) {
+        runInBackground(() -> {
+            LoadoutSerializer.BundleImportResult result = loadoutSerializer.importBundle(policy);
+            refreshPanel();
+            return result;
+        }, null, callback);
+    }
+
+    /**
+     * Gets the current metrics as a table for the Diagnostics section.
+     */
+    public String getMetricsSummary() {
+        return metrics.format();
+    }
+
+    public void dumpMetricsToLog() {
+        metrics.dumpToLog();
+    }
+
+    public void resetMetrics() {
+        metrics.reset();
     }
 
     public void resetToDefaultsFromPanel() {
-        clientThread.invokeLater(() -> {
-            loadoutManager.resetToDefaults();
-            // Update cache after a brief delay to allow varbits to be set
-            executor.schedule(() -> clientThread.invokeLater(() -> {
-                loadoutManager.updateCachedFilters();
+        watchdog.invokeLater("reset to defaults", () -> {
+            boolean success = loadoutManager.resetToDefaults(this::refreshPanel);
+            if (!success) {
                 refreshPanel();
-            }), 150, TimeUnit.MILLISECONDS);
+            }
         });
     }
 
-    private void refreshPanel() {
-        if (panel != null) {
-            panel.rebuild();
-        }
+    /**
+     * Requests a panel rebuild through the scheduler, so it is coalesced with other refreshes.
+     */
+    public void refreshPanel() {
+        refreshScheduler.requestRefresh();
+    }
+
+    /**
+     * Runs clipboard, parsing and persistence work on the executor so the panel stays responsive,
+     * then hands the result to the callback on the Swing EDT. The callback still runs if the task throws,
+     * with the failure value, so the panel can clear its busy state. The callback may be null.
+     */
+    private <T> void runInBackground(Supplier<T> task, T failure, Consumer<T> callback) {
+        executor.execute(() -> {
+            T result = failure;
+            try {
+                result = task.get();
+            } finally {
+                if (callback != null) {
+                    T delivered = result;
+                    SwingUtilities.invokeLater(() -> callback.accept(delivered));
+                }
+            }
+        });
     }
 
 }
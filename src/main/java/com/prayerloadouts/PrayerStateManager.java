@@ -2,10 +2,10 @@ package com.prayerloadouts;
 
 import net.runelite.api.Client;
 import net.runelite.api.gameval.InterfaceID;
-import net.runelite.api.gameval.VarbitID;
 import net.runelite.api.widgets.Widget;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.PluginManager;
 import net.runelite.client.plugins.prayer.PrayerPlugin;
 
@@ -17,6 +17,9 @@ import java.util.Map;
 /**
  * Manages prayer-specific state including hidden prayers, filter settings, and
  * UI refresh.
+ * <p>
+ * Hidden prayers are read from config once per prayerbook and then kept up to date from
+ * ConfigChanged events, so reading the current state does not scan config keys.
  */
 @Singleton
 public class PrayerStateManager {
@@ -27,6 +30,16 @@ public class PrayerStateManager {
     private final PluginManager pluginManager;
     private final PrayerPlugin prayerPlugin;
 
+    /**
+     * Hidden prayers per prayerbook (key suffix -> value), filled on first use and updated from ConfigChanged.
+     */
+    private final Map<Integer, Map<String, String>> hiddenPrayersByBook = new HashMap<>();
+
+    /**
+     * Current layout per prayerbook, dropped when its order or hidden prayers change.
+     */
+    private final Map<Integer, PrayerLayout> layoutCache = new HashMap<>();
+
     @Inject
     public PrayerStateManager(Client client, ClientThread clientThread,
             ConfigManager configManager, PluginManager pluginManager,
@@ -46,7 +59,20 @@ public class PrayerStateManager {
      * Gets the current hidden prayers from the Prayer plugin's config.
      * @return Map of prayer key to hidden value
      */
-    public Map<String, String> getCurrentHiddenPrayers(int prayerbook) {
+    public synchronized Map<String, String> getCurrentHiddenPrayers(int prayerbook) {
+        return new HashMap<>(trackedHiddenPrayers(prayerbook));
+    }
+
+    private Map<String, String> trackedHiddenPrayers(int prayerbook) {
+        Map<String, String> tracked = hiddenPrayersByBook.get(prayerbook);
+        if (tracked == null) {
+            tracked = readHiddenPrayers(prayerbook);
+            hiddenPrayersByBook.put(prayerbook, tracked);
+        }
+        return tracked;
+    }
+
+    private Map<String, String> readHiddenPrayers(int prayerbook) {
         Map<String, String> hiddenPrayers = new HashMap<>();
         String prefix = LoadoutManager.PRAYER_CONFIG_GROUP + "." + LoadoutManager.PRAYER_HIDDEN_KEY_PREFIX + prayerbook;
 
@@ -64,67 +90,132 @@ public class PrayerStateManager {
     }
 
     /**
-     * Gets a fingerprint of the current hidden prayers for comparison.
+     * Gets the current prayer order and hidden prayers from the Prayer plugin's config in compact form.
      */
-    public String getHiddenPrayersFingerprint(int prayerbook) {
-        Map<String, String> hiddenPrayers = getCurrentHiddenPrayers(prayerbook);
-        if (hiddenPrayers.isEmpty()) {
-            return "";
+    synchronized PrayerLayout getCurrentLayout(int prayerbook) {
+        PrayerLayout layout = layoutCache.get(prayerbook);
+        if (layout == null) {
+            String order = configManager.getConfiguration(
+                    LoadoutManager.PRAYER_CONFIG_GROUP,
+                    LoadoutManager.PRAYER_ORDER_KEY_PREFIX + prayerbook);
+            String orderValue = (order == null || order.isEmpty()) ? PrayerLayout.DEFAULT_ORDER : order;
+            layout = PrayerLayout.fromConfig(orderValue, trackedHiddenPrayers(prayerbook));
+            layoutCache.put(prayerbook, layout);
         }
-
-        StringBuilder sb = new StringBuilder();
-        hiddenPrayers.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> sb.append(entry.getKey()).append("=").append(entry.getValue()).append(";"));
-        return sb.toString();
+        return layout;
     }
 
     /**
-     * Loads hidden prayers from a map into the Prayer plugin's config.
+     * Applies a Prayer plugin config change to the tracked state.
      */
-    public void loadHiddenPrayers(Map<String, String> hiddenPrayers, int prayerbook) {
-        // Clear current hidden prayers
-        String currentPrefix = LoadoutManager.PRAYER_CONFIG_GROUP + "." + LoadoutManager.PRAYER_HIDDEN_KEY_PREFIX + prayerbook;
-        for (String key : configManager.getConfigurationKeys(currentPrefix)) {
-            String[] parts = key.split("\\.", 2);
-            if (parts.length == 2) {
-                configManager.unsetConfiguration(parts[0], parts[1]);
-            }
+    public synchronized void onConfigChanged(ConfigChanged event) {
+        String key = event.getKey();
+        if (!LoadoutManager.PRAYER_CONFIG_GROUP.equals(event.getGroup()) || key == null) {
+            return;
         }
 
-        // Restore hidden prayers from the provided map
-        if (hiddenPrayers != null) {
-            for (Map.Entry<String, String> entry : hiddenPrayers.entrySet()) {
-                String configKey = LoadoutManager.PRAYER_HIDDEN_KEY_PREFIX + prayerbook + entry.getKey();
-                configManager.setConfiguration(LoadoutManager.PRAYER_CONFIG_GROUP, configKey, entry.getValue());
+        if (key.startsWith(LoadoutManager.PRAYER_HIDDEN_KEY_PREFIX)) {
+            // Same split as readHiddenPrayers: one prayerbook digit, then the prayer key suffix
+            int prefixLength = LoadoutManager.PRAYER_HIDDEN_KEY_PREFIX.length();
+            if (key.length() <= prefixLength || !Character.isDigit(key.charAt(prefixLength))) {
+                return;
+            }
+            int prayerbook = key.charAt(prefixLength) - '0';
+            String prayerKey = key.substring(prefixLength + 1);
+
+            Map<String, String> tracked = hiddenPrayersByBook.get(prayerbook);
+            if (tracked != null) {
+                if (event.getNewValue() == null) {
+                    tracked.remove(prayerKey);
+                } else {
+                    tracked.put(prayerKey, event.getNewValue());
+                }
+            }
+            layoutCache.remove(prayerbook);
+        } else if (key.startsWith(LoadoutManager.PRAYER_ORDER_KEY_PREFIX)) {
+            try {
+                layoutCache.remove(Integer.parseInt(key.substring(LoadoutManager.PRAYER_ORDER_KEY_PREFIX.length())));
+            } catch (NumberFormatException e) {
+                layoutCache.clear();
             }
         }
     }
 
     /**
-     * Loads prayer filter settings from FilterSettings object.
-     * @param filters Filter settings to apply (can be null for defaults)
-     * @param onComplete Optional callback to run after varbits are set (on client thread)
+     * Forgets all tracked state, e.g. after a profile switch replaced the Prayer plugin's config.
+     */
+    public synchronized void invalidate() {
+        hiddenPrayersByBook.clear();
+        layoutCache.clear();
+    }
+
+    /**
+     * Replays an apply plan in one pass: writes the config keys and sets the varbits that differ from the
+     * current state, then redraws the prayerbook once if anything changed. Must be called on the client thread.
+     * @return true if anything was changed
      */
-    public void loadPrayerFilters(LoadoutData.FilterSettings filters, Runnable onComplete) {
-        clientThread.invokeLater(() -> {
-            if (filters != null) {
-                client.setVarbit(VarbitID.PRAYER_FILTER_BLOCKLOWTIER, filters.getBlockLowTier());
-                client.setVarbit(VarbitID.PRAYER_FILTER_ALLOWCOMBINEDTIER, filters.getAllowCombinedTier());
-                client.setVarbit(VarbitID.PRAYER_FILTER_BLOCKHEALING, filters.getBlockHealing());
-                client.setVarbit(VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL, filters.getBlockLackLevel());
-                client.setVarbit(VarbitID.PRAYER_FILTER_BLOCKLOCKED, filters.getBlockLocked());
-                client.setVarbit(VarbitID.PRAYER_HIDEFILTERBUTTON, filters.getHideFilterButton());
+    public boolean apply(ApplyPlan plan) {
+        int prayerbook = plan.getPrayerbook();
+        PrayerLayout current = getCurrentLayout(prayerbook);
+        PrayerLayout target = plan.getLayout();
+        boolean changed = false;
+
+        if (!current.sameOrder(target)) {
+            if (plan.getOrderValue() == null) {
+                configManager.unsetConfiguration(LoadoutManager.PRAYER_CONFIG_GROUP, plan.getOrderKey());
+            } else {
+                configManager.setConfiguration(LoadoutManager.PRAYER_CONFIG_GROUP, plan.getOrderKey(),
+                        plan.getOrderValue());
             }
+            changed = true;
+        }
 
-            // Redraw after setting all varbits to update the filter UI
-            redrawPrayers();
+        if (!current.sameHiddenPrayers(target)) {
+            Map<String, String> currentHidden = getCurrentHiddenPrayers(prayerbook);
+            Map<String, String> targetHidden = plan.getHiddenPrayers();
 
-            // Run callback after varbits are set and UI is updated
-            if (onComplete != null) {
-                onComplete.run();
+            for (String prayerKey : currentHidden.keySet()) {
+                if (!targetHidden.containsKey(prayerKey)) {
+                    configManager.unsetConfiguration(LoadoutManager.PRAYER_CONFIG_GROUP,
+                            ApplyPlan.hiddenKey(prayerbook, prayerKey));
+                }
             }
-        });
+            for (Map.Entry<String, String> entry : targetHidden.entrySet()) {
+                if (!entry.getValue().equals(currentHidden.get(entry.getKey()))) {
+                    configManager.setConfiguration(LoadoutManager.PRAYER_CONFIG_GROUP,
+                            plan.getHiddenKey(entry.getKey()), entry.getValue());
+                }
+            }
+            changed = true;
+        }
+
+        if (plan.hasFilters()) {
+            for (int i = 0; i < ApplyPlan.FILTER_VARBITS.length; i++) {
+                changed |= setVarbitIfChanged(ApplyPlan.FILTER_VARBITS[i], plan.getVarbitValue(i));
+            }
+        }
+
+        // Redraw once after all writes to update the prayer and filter UI
+        if (changed) {
+            redrawPrayers();
+        }
+        return changed;
+    }
+
+    private void clearHiddenPrayers(int prayerbook) {
+        // Copied because each unset updates the tracked map through ConfigChanged
+        for (String prayerKey : getCurrentHiddenPrayers(prayerbook).keySet()) {
+            configManager.unsetConfiguration(LoadoutManager.PRAYER_CONFIG_GROUP,
+                    ApplyPlan.hiddenKey(prayerbook, prayerKey));
+        }
+    }
+
+    private boolean setVarbitIfChanged(int varbitId, int value) {
+        if (client.getVarbitValue(varbitId) == value) {
+            return false;
+        }
+        client.setVarbit(varbitId, value);
+        return true;
     }
 
     public void redrawPrayers() {
@@ -134,31 +225,38 @@ public class PrayerStateManager {
         }
     }
 
-    public void resetToDefaults(int prayerbook) {
+    /**
+     * Restores the default prayer order, hidden prayers and filter settings. Runs inline when called on
+     * the client thread, otherwise the varbits are reset on it.
+     * @param onComplete Optional callback to run after varbits are set and the UI is redrawn (on client thread)
+     */
+    public void resetToDefaults(int prayerbook, Runnable onComplete) {
         // Clear prayer order configuration
         configManager.unsetConfiguration(
                 LoadoutManager.PRAYER_CONFIG_GROUP,
                 LoadoutManager.PRAYER_ORDER_KEY_PREFIX + prayerbook);
 
         // Clear hidden prayers configuration
-        for (String key : configManager.getConfigurationKeys(
-                LoadoutManager.PRAYER_CONFIG_GROUP + "." + LoadoutManager.PRAYER_HIDDEN_KEY_PREFIX + prayerbook)) {
-            String[] parts = key.split("\\.", 2);
-            if (parts.length == 2) {
-                configManager.unsetConfiguration(parts[0], parts[1]);
-            }
-        }
+        clearHiddenPrayers(prayerbook);
 
-        // Reset filter varbits to defaults on the client thread
-        clientThread.invokeLater(() -> {
-            client.setVarbit(VarbitID.PRAYER_FILTER_BLOCKLOWTIER, 0);
-            client.setVarbit(VarbitID.PRAYER_FILTER_BLOCKHEALING, 0);
-            client.setVarbit(VarbitID.PRAYER_FILTER_BLOCKLACKLEVEL, 0);
-            client.setVarbit(VarbitID.PRAYER_FILTER_BLOCKLOCKED, 0);
-            client.setVarbit(VarbitID.PRAYER_HIDEFILTERBUTTON, 0);
+        Runnable resetFilters = () -> {
+            for (int varbitId : ApplyPlan.FILTER_VARBITS) {
+                client.setVarbit(varbitId, 0);
+            }
 
             // Redraw to update the filter UI after setting all varbits
             redrawPrayers();
-        });
+
+            // Run callback after varbits are set and UI is updated
+            if (onComplete != null) {
+                onComplete.run();
+            }
+        };
+
+        if (client.isClientThread()) {
+            resetFilters.run();
+        } else {
+            clientThread.invokeLater(resetFilters);
+        }
     }
 }
@@ -0,0 +1,103 @@
+package com.prayerloadouts;
+
+import net.runelite.api.Client;
+import net.runelite.api.gameval.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AutoLoadTriggerTest {
+    private final PluginMetrics metrics = new PluginMetrics();
+    private final AtomicInteger runs = new AtomicInteger();
+    private boolean prayerbookLoaded;
+    private AutoLoadTrigger trigger;
+
+    @Before
+    public void setUp() {
+        Widget prayerWidget = mock(Widget.class);
+        Client client = mock(Client.class);
+        when(client.getWidget(InterfaceID.PRAYERBOOK, 0)).thenAnswer(inv -> prayerbookLoaded ? prayerWidget : null);
+        trigger = new AutoLoadTrigger(client, metrics);
+    }
+
+    @Test
+    public void firesOnFirstTickWhenPrayerbookIsLoaded() {
+        prayerbookLoaded = true;
+        trigger.arm(runs::incrementAndGet);
+        assertEquals(0, runs.get());
+
+        trigger.onGameTick();
+        assertEquals(1, runs.get());
+        assertEquals(1, metrics.getHistogram(PluginMetrics.Timer.AUTO_LOAD).getCount());
+
+        trigger.onGameTick();
+        trigger.onWidgetLoaded(InterfaceID.PRAYERBOOK);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void waitsForTickBeforeWidget() {
+        trigger.arm(runs::incrementAndGet);
+
+        // The widget can load before the server has sent the varbits
+        trigger.onWidgetLoaded(InterfaceID.PRAYERBOOK);
+        assertEquals(0, runs.get());
+
+        trigger.onGameTick();
+        assertEquals(0, runs.get());
+
+        trigger.onWidgetLoaded(InterfaceID.PRAYERBOOK + 1);
+        assertEquals(0, runs.get());
+
+        trigger.onWidgetLoaded(InterfaceID.PRAYERBOOK);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void firesAfterTimeoutWithoutPrayerbook() {
+        trigger.arm(runs::incrementAndGet);
+
+        for (int tick = 1; tick < AutoLoadTrigger.TIMEOUT_TICKS; tick++) {
+            trigger.onGameTick();
+        }
+        assertEquals(0, runs.get());
+
+        trigger.onGameTick();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void cancelDropsWaitingAction() {
+        prayerbookLoaded = true;
+        trigger.arm(runs::incrementAndGet);
+        trigger.cancel();
+
+        trigger.onGameTick();
+        assertEquals(0, runs.get());
+        assertEquals(0, metrics.getHistogram(PluginMetrics.Timer.AUTO_LOAD).getCount());
+    }
+
+    @Test
+    public void armReplacesWaitingActionAndRestartsTimeout() {
+        AtomicInteger replacedRuns = new AtomicInteger();
+        trigger.arm(replacedRuns::incrementAndGet);
+        for (int tick = 1; tick < AutoLoadTrigger.TIMEOUT_TICKS; tick++) {
+            trigger.onGameTick();
+        }
+
+        // The timeout counts from the latest arm, so this tick does not fire it
+        trigger.arm(runs::incrementAndGet);
+        trigger.onGameTick();
+        assertEquals(0, runs.get());
+
+        trigger.onWidgetLoaded(InterfaceID.PRAYERBOOK);
+        assertEquals(1, runs.get());
+        assertEquals(0, replacedRuns.get());
+    }
+}
@@ -0,0 +1,49 @@
+package com.prayerloadouts;
+
+import net.runelite.client.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ConfigManager mock backed by a map of "group.key" to value. Calls are recorded, so tests can also
+ * verify which keys were written.
+ */
+final class FakeConfigManager {
+    private FakeConfigManager() {
+    }
+
+    /**
+     * @param config Values keyed by "group.key"; should be concurrent if the store flushes on its executor
+     */
+    static ConfigManager create(Map<String, String> config) {
+        ConfigManager configManager = mock(ConfigManager.class);
+        when(configManager.getConfiguration(anyString(), anyString()))
+                .thenAnswer(inv -> config.get(inv.getArgument(0) + "." + inv.getArgument(1)));
+        doAnswer(inv -> {
+            config.put(inv.getArgument(0) + "." + inv.getArgument(1), inv.getArgument(2));
+            return null;
+        }).when(configManager).setConfiguration(anyString(), anyString(), anyString());
+        doAnswer(inv -> {
+            config.remove(inv.getArgument(0) + "." + inv.getArgument(1));
+            return null;
+        }).when(configManager).unsetConfiguration(anyString(), anyString());
+        when(configManager.getConfigurationKeys(anyString())).thenAnswer(inv -> {
+            String prefix = inv.getArgument(0);
+            List<String> keys = new ArrayList<>();
+            for (String key : config.keySet()) {
+                if (key.startsWith(prefix)) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        });
+        return configManager;
+    }
+}
@@ -0,0 +1,79 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FilterSettingsTest {
+    @Test
+    public void packsEachSettingSeparately() {
+        Set<Integer> packed = new HashSet<>();
+        for (int setting = 0; setting < 6; setting++) {
+            for (int value = 1; value <= 15; value++) {
+                assertTrue(packed.add(settingWith(setting, value).toPacked()));
+            }
+        }
+        assertFalse(packed.contains(LoadoutData.FilterSettings.DEFAULT_PACKED));
+        assertFalse(packed.contains(LoadoutData.FilterSettings.UNPACKABLE));
+    }
+
+    @Test
+    public void missingSettingsPackAsZero() {
+        assertEquals(LoadoutData.FilterSettings.DEFAULT_PACKED, LoadoutData.FilterSettings.pack(null));
+        assertEquals(LoadoutData.FilterSettings.DEFAULT_PACKED, new LoadoutData.FilterSettings().toPacked());
+    }
+
+    @Test
+    public void outOfRangeSettingsAreUnpackable() {
+        for (int setting = 0; setting < 6; setting++) {
+            assertEquals(LoadoutData.FilterSettings.UNPACKABLE, settingWith(setting, 16).toPacked());
+            assertEquals(LoadoutData.FilterSettings.UNPACKABLE, settingWith(setting, -1).toPacked());
+        }
+    }
+
+    @Test
+    public void comparesUnpackableSettingsByValue() {
+        assertTrue(LoadoutData.FilterSettings.sameSettings(null, new LoadoutData.FilterSettings()));
+        assertTrue(LoadoutData.FilterSettings.sameSettings(settingWith(2, 16), settingWith(2, 16)));
+        assertFalse(LoadoutData.FilterSettings.sameSettings(settingWith(2, 16), settingWith(2, 32)));
+        assertFalse(LoadoutData.FilterSettings.sameSettings(settingWith(2, 16), null));
+        assertFalse(LoadoutData.FilterSettings.sameSettings(settingWith(2, 16), settingWith(2, 0)));
+    }
+
+    @Test
+    public void unpackableSettingsRoundTripAndMatch() {
+        LoadoutData loadout = new LoadoutData("Melee");
+        loadout.setPrayerOrder(0, "3,1,2");
+        loadout.setFilters(0, settingWith(2, 16));
+
+        Gson gson = new Gson();
+        LoadoutData read = gson.fromJson(gson.toJson(loadout, LoadoutData.class), LoadoutData.class);
+        assertEquals(16, read.getFilters(0).getBlockHealing());
+
+        LoadoutIndex index = LoadoutIndex.build(Collections.singletonMap("Melee", read));
+        PrayerLayout layout = PrayerLayout.fromConfig("3,1,2", null);
+        int unpackable = LoadoutData.FilterSettings.UNPACKABLE;
+
+        assertEquals("Melee", index.findMatch(0, layout, unpackable, settingWith(2, 16), null));
+        assertNull(index.findMatch(0, layout, unpackable, settingWith(2, 32), null));
+        // 16 must not alias 0 in its packed form
+        assertNull(index.findMatch(0, layout, LoadoutData.FilterSettings.DEFAULT_PACKED, null, null));
+    }
+
+    /**
+     * Gets settings with one setting, in constructor order, set to a value and the rest zero.
+     */
+    private static LoadoutData.FilterSettings settingWith(int setting, int value) {
+        int[] values = new int[6];
+        values[setting] = value;
+        return new LoadoutData.FilterSettings(values[0], values[1], values[2], values[3], values[4], values[5]);
+    }
+}
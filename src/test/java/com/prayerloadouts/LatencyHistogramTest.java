@@ -0,0 +1,89 @@
+package com.prayerloadouts;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void smallValuesHaveTheirOwnBuckets() {
+        for (int value = 0; value < 4; value++) {
+            assertEquals(value, LatencyHistogram.bucketIndex(value));
+            assertEquals(value, LatencyHistogram.bucketUpperBound(value));
+        }
+    }
+
+    @Test
+    public void bucketsBoundValuesWithinAQuarter() {
+        long[] values = {4, 5, 7, 8, 9, 15, 16, 100, 1_000, 123_456, 1_000_000_007L, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(value + " above its bucket " + upper, upper >= value);
+            assertTrue(value + " too far below its bucket " + upper, upper - value <= value / 4);
+            if (index > 0) {
+                assertTrue(value + " fits the previous bucket", LatencyHistogram.bucketUpperBound(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long value = 1; value < 4096; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            int previous = LatencyHistogram.bucketIndex(value - 1);
+            assertTrue(index == previous || index == previous + 1);
+            if (index != previous) {
+                assertEquals(value - 1, LatencyHistogram.bucketUpperBound(previous));
+            }
+        }
+    }
+
+    @Test
+    public void reportsPercentilesAsBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        // 50 falls in [48, 55] and 90 in [80, 95]
+        assertEquals(55, histogram.getValueAtPercentile(50));
+        assertEquals(95, histogram.getValueAtPercentile(90));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        // Capped at the largest recorded value rather than its bucket's bound of 111
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void tracksCountTotalMeanAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+        histogram.record(10);
+        histogram.record(20);
+        histogram.record(-5);
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(30, histogram.getTotal());
+        assertEquals(10, histogram.getMean());
+        assertEquals(20, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(1));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotal());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        histogram.record(3);
+        assertEquals(3, histogram.getValueAtPercentile(99));
+    }
+}
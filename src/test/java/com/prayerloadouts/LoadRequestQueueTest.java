@@ -0,0 +1,109 @@
+package com.prayerloadouts;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoadRequestQueueTest {
+    /**
+     * Drains queued on the client thread.
+     */
+    private final Queue<Runnable> clientThreadTasks = new ArrayDeque<>();
+    private final List<String> results = new ArrayList<>();
+    private final PluginMetrics metrics = new PluginMetrics();
+    private LoadoutManager loadoutManager;
+    private PanelRefreshScheduler refreshScheduler;
+    private LoadRequestQueue queue;
+
+    @Before
+    public void setUp() {
+        ClientThreadWatchdog watchdog = mock(ClientThreadWatchdog.class);
+        doAnswer(inv -> {
+            clientThreadTasks.add(inv.getArgument(1));
+            return null;
+        }).when(watchdog).invokeLater(eq("load"), any(Runnable.class));
+
+        loadoutManager = mock(LoadoutManager.class);
+        when(loadoutManager.loadLoadout(anyString(), any())).thenReturn(true);
+        refreshScheduler = mock(PanelRefreshScheduler.class);
+        queue = new LoadRequestQueue(loadoutManager, watchdog, refreshScheduler, metrics);
+    }
+
+    @Test
+    public void appliesOnlyNewestRequest() {
+        submit("Melee");
+        submit("Ranged");
+        submit("Magic");
+
+        assertEquals(1, clientThreadTasks.size());
+        assertEquals(Arrays.asList("Melee SUPERSEDED", "Ranged SUPERSEDED"), results);
+        assertEquals(2, metrics.getCount(PluginMetrics.Counter.SUPERSEDED_LOADS));
+        verify(loadoutManager, never()).loadLoadout(anyString(), any());
+
+        runClientThread();
+        verify(loadoutManager, times(1)).loadLoadout(anyString(), any());
+        verify(loadoutManager).loadLoadout("Magic", null);
+        verify(refreshScheduler, times(1)).requestRefresh();
+        assertEquals(Arrays.asList("Melee SUPERSEDED", "Ranged SUPERSEDED", "Magic LOADED"), results);
+    }
+
+    @Test
+    public void reportsLoadWithoutData() {
+        when(loadoutManager.loadLoadout("Missing", null)).thenReturn(false);
+        submit("Missing");
+        runClientThread();
+
+        assertEquals(Arrays.asList("Missing NO_DATA"), results);
+        verify(refreshScheduler).requestRefresh();
+    }
+
+    @Test
+    public void requestAfterDrainQueuesAnother() {
+        submit("Melee");
+        runClientThread();
+        submit("Ranged");
+
+        assertEquals(1, clientThreadTasks.size());
+        runClientThread();
+        assertEquals(Arrays.asList("Melee LOADED", "Ranged LOADED"), results);
+        assertEquals(0, metrics.getCount(PluginMetrics.Counter.SUPERSEDED_LOADS));
+    }
+
+    @Test
+    public void acceptsRequestWithoutCallback() {
+        queue.submit("Melee", null);
+        submit("Ranged");
+        queue.submit("Magic", null);
+
+        runClientThread();
+        assertEquals(Arrays.asList("Ranged SUPERSEDED"), results);
+        verify(loadoutManager).loadLoadout("Magic", null);
+    }
+
+    private void submit(String name) {
+        queue.submit(name, result -> results.add(name + " " + result));
+    }
+
+    private void runClientThread() {
+        Runnable task;
+        while ((task = clientThreadTasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LoadoutDataTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void roundTripsJson() {
+        int last = LoadoutData.MAX_PRAYERBOOKS - 1;
+        LoadoutData loadout = new LoadoutData("Melee");
+        loadout.setPrayerOrder(0, "3,1,2");
+        loadout.setHiddenPrayers(0, Collections.singletonMap("_5", "true"));
+        loadout.setFilters(0, new LoadoutData.FilterSettings(1, 0, 1, 0, 0, 1));
+        loadout.setPrayerOrder(last, PrayerLayout.DEFAULT_ORDER);
+
+        LoadoutData read = gson.fromJson(gson.toJson(loadout, LoadoutData.class), LoadoutData.class);
+
+        assertEquals("Melee", read.getDisplayName());
+        assertEquals("3,1,2", read.getPrayerOrder(0));
+        assertEquals(Collections.singletonMap("_5", "true"), read.getHiddenPrayers(0));
+        assertTrue(LoadoutData.FilterSettings.sameSettings(loadout.getFilters(0), read.getFilters(0)));
+        assertEquals(PrayerLayout.DEFAULT_ORDER, read.getPrayerOrder(last));
+    }
+
+    @Test
+    public void rejectsUnsupportedPrayerbooks() {
+        int unsupported = LoadoutData.MAX_PRAYERBOOKS;
+        assertRejected("{\"prayerOrders\":{\"" + unsupported + "\":\"3,1,2\"}}");
+        assertRejected("{\"prayerOrders\":{\"0\":\"3,1,2\"},\"filters\":{\"" + unsupported + "\":{}}}");
+        assertRejected("{\"prayerOrders\":{\"0\":\"3,1,2\"},\"hiddenPrayers\":{\"-1\":{\"_5\":\"true\"}}}");
+        assertRejected("{\"prayerOrders\":{\"standard\":\"3,1,2\"}}");
+    }
+
+    private void assertRejected(String json) {
+        try {
+            gson.fromJson(json, LoadoutData.class);
+            fail("expected " + json + " to be rejected");
+        } catch (JsonParseException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.prayerloadouts;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LoadoutIndexTest {
+    private static final PrayerLayout LIVE_LAYOUT = PrayerLayout.fromConfig("3,1,2", null);
+
+    @Test
+    public void findMatchPrefersLastLoadedLoadout() {
+        LoadoutIndex index = LoadoutIndex.build(library("First", "Second", "Third"));
+
+        assertEquals("Second", index.findMatch(0, LIVE_LAYOUT, 0, null, "Second"));
+        assertEquals("Third", index.findMatch(0, LIVE_LAYOUT, 0, null, "Third"));
+    }
+
+    @Test
+    public void findMatchFallsBackToFirstInLoadoutOrder() {
+        LoadoutIndex index = LoadoutIndex.build(library("First", "Second"));
+
+        assertEquals("First", index.findMatch(0, LIVE_LAYOUT, 0, null, null));
+        assertEquals("First", index.findMatch(0, LIVE_LAYOUT, 0, null, "Missing"));
+    }
+
+    @Test
+    public void findMatchIgnoresPreferredLoadoutThatDoesNotMatch() {
+        Map<String, LoadoutData> loadouts = library("First");
+        loadouts.put("Other", loadout("1,2,3"));
+        LoadoutIndex index = LoadoutIndex.build(loadouts);
+
+        assertEquals("First", index.findMatch(0, LIVE_LAYOUT, 0, null, "Other"));
+        assertNull(index.findMatch(1, LIVE_LAYOUT, 0, null, "Other"));
+    }
+
+    @Test
+    public void replacedLoadoutKeepsItsPlaceInLoadoutOrder() {
+        Map<String, LoadoutData> loadouts = library("First", "Second");
+        LoadoutIndex index = LoadoutIndex.build(loadouts);
+
+        index = index.with("First", loadouts.get("First"), loadout("3,1,2"));
+
+        assertEquals("First", index.findMatch(0, LIVE_LAYOUT, 0, null, null));
+        assertEquals("Second", index.findMatch(0, LIVE_LAYOUT, 0, null, "Second"));
+        assertEquals("Second", index.without("First", loadouts.get("First"))
+                .findMatch(0, LIVE_LAYOUT, 0, null, null));
+    }
+
+    /**
+     * Builds a library in which every loadout matches {@link #LIVE_LAYOUT}.
+     */
+    private static Map<String, LoadoutData> library(String... names) {
+        Map<String, LoadoutData> loadouts = new LinkedHashMap<>();
+        for (String name : names) {
+            loadouts.put(name, loadout("3,1,2"));
+        }
+        return loadouts;
+    }
+
+    private static LoadoutData loadout(String order) {
+        LoadoutData loadout = new LoadoutData();
+        loadout.setPrayerOrder(0, order);
+        return loadout;
+    }
+}
@@ -0,0 +1,123 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LoadoutManagerTest {
+    private static final String MELEE_KEY = LoadoutManager.CONFIG_GROUP + ".loadout_melee";
+
+    private final Map<String, String> config = new ConcurrentHashMap<>();
+    /**
+     * Work the manager queued on its executor, run only when a test says so.
+     */
+    private final Queue<Runnable> executorTasks = new ArrayDeque<>();
+    private PrayerLayout liveLayout = PrayerLayout.fromConfig("3,1,2", null);
+    private ScheduledExecutorService storeExecutor;
+    private LoadoutManager manager;
+
+    @Before
+    public void setUp() {
+        storeExecutor = Executors.newSingleThreadScheduledExecutor();
+        LoadoutStore store = new LoadoutStore(FakeConfigManager.create(config), new Gson(), storeExecutor,
+                new PluginMetrics());
+
+        Client client = mock(Client.class);
+        when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
+
+        PrayerStateManager prayerStateManager = mock(PrayerStateManager.class);
+        when(prayerStateManager.isPrayerPluginEnabled()).thenReturn(true);
+        when(prayerStateManager.getCurrentLayout(anyInt())).thenAnswer(inv -> liveLayout);
+
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        doAnswer(inv -> {
+            executorTasks.add(inv.getArgument(0));
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+
+        manager = new LoadoutManager(client, prayerStateManager, store, new PluginMetrics(), executor);
+    }
+
+    @After
+    public void tearDown() {
+        storeExecutor.shutdownNow();
+    }
+
+    @Test
+    public void commitsSaveWithinSameProfile() {
+        assertTrue(manager.saveLoadout("Melee", null));
+        assertEquals("3,1,2", manager.getLoadout("Melee").getPrayerOrder(0));
+
+        runExecutor();
+        manager.flush();
+
+        assertEquals("3,1,2", manager.getLoadout("Melee").getPrayerOrder(0));
+        assertTrue(config.containsKey(MELEE_KEY));
+    }
+
+    @Test
+    public void dropsSaveCapturedForPreviousProfile() {
+        assertTrue(manager.saveLoadout("Melee", null));
+        manager.onProfileChanged();
+        assertNull(manager.getLoadout("Melee"));
+
+        // The commit was queued before the switch and must not reach the new profile
+        runExecutor();
+        manager.flush();
+
+        assertNull(manager.getLoadout("Melee"));
+        assertFalse(config.containsKey(MELEE_KEY));
+    }
+
+    @Test
+    public void detectsActiveLoadoutFromCapturedLayout() {
+        manager.saveLoadoutData("Melee", loadout("3,1,2"));
+        assertNull(manager.getActiveLoadoutName(true));
+
+        manager.updateCachedFilters();
+        assertEquals("Melee", manager.getActiveLoadoutName(true));
+        assertNull(manager.getActiveLoadoutName(false));
+
+        // Detection reads the published layout, not the Prayer plugin's config
+        liveLayout = PrayerLayout.fromConfig("2,3,1", null);
+        assertEquals("Melee", manager.getActiveLoadoutName(true));
+
+        assertTrue(manager.updateCachedLayout());
+        assertNull(manager.getActiveLoadoutName(true));
+        assertFalse(manager.updateCachedLayout());
+    }
+
+    private static LoadoutData loadout(String order) {
+        LoadoutData loadout = new LoadoutData("Melee");
+        loadout.setPrayerOrder(0, order);
+        loadout.setFilters(0, new LoadoutData.FilterSettings());
+        return loadout;
+    }
+
+    private void runExecutor() {
+        Runnable task;
+        while ((task = executorTasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class LoadoutSerializerTest {
+    /**
+     * Name that only survives a bundle because it is escaped.
+     */
+    private static final String ESCAPED_NAME = "Melee, 100%";
+
+    private ScheduledExecutorService executor;
+    private String bundle;
+    private LoadoutManager target;
+    private LoadoutSerializer serializer;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+
+        LoadoutManager source = newManager();
+        source.saveLoadoutData("Ranged", loadout("1,2,3"));
+        source.saveLoadoutData(ESCAPED_NAME, loadout("2,3,1"));
+        bundle = new LoadoutSerializer(source).exportBundleToString(null);
+        assertNotNull(bundle);
+
+        target = newManager();
+        target.saveLoadoutData("Ranged", loadout("3,1,2"));
+        serializer = new LoadoutSerializer(target);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void skipKeepsExistingLoadouts() {
+        LoadoutSerializer.BundleImportResult result =
+                serializer.importBundleFromString(bundle, LoadoutSerializer.ConflictPolicy.SKIP);
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getSkipped());
+        assertEquals(Arrays.asList("Ranged", ESCAPED_NAME), new ArrayList<>(target.getLoadoutNames()));
+        assertEquals("3,1,2", target.getLoadout("Ranged").getPrayerOrder(0));
+        assertEquals("2,3,1", target.getLoadout(ESCAPED_NAME).getPrayerOrder(0));
+    }
+
+    @Test
+    public void overwriteReplacesExistingLoadouts() {
+        LoadoutSerializer.BundleImportResult result =
+                serializer.importBundleFromString(bundle, LoadoutSerializer.ConflictPolicy.OVERWRITE);
+
+        assertEquals(2, result.getImported());
+        assertEquals(0, result.getSkipped());
+        assertEquals(Arrays.asList("Ranged", ESCAPED_NAME), new ArrayList<>(target.getLoadoutNames()));
+        assertEquals("1,2,3", target.getLoadout("Ranged").getPrayerOrder(0));
+    }
+
+    @Test
+    public void renameImportsUnderFreeName() {
+        target.saveLoadoutData("Ranged (2)", loadout("3,2,1"));
+
+        LoadoutSerializer.BundleImportResult result =
+                serializer.importBundleFromString(bundle, LoadoutSerializer.ConflictPolicy.RENAME);
+
+        assertEquals(2, result.getImported());
+        assertEquals(0, result.getSkipped());
+        assertEquals("3,1,2", target.getLoadout("Ranged").getPrayerOrder(0));
+        assertEquals("3,2,1", target.getLoadout("Ranged (2)").getPrayerOrder(0));
+        assertEquals("1,2,3", target.getLoadout("Ranged (3)").getPrayerOrder(0));
+        assertEquals("Ranged (3)", target.getLoadout("Ranged (3)").getDisplayName());
+        assertEquals("2,3,1", target.getLoadout(ESCAPED_NAME).getPrayerOrder(0));
+    }
+
+    @Test
+    public void rejectsUnsupportedVersion() {
+        String future = LoadoutSerializer.BUNDLE_HEADER + (LoadoutSerializer.BUNDLE_VERSION + 1)
+                + bundle.substring(bundle.indexOf(':', LoadoutSerializer.BUNDLE_HEADER.length()));
+
+        assertNull(serializer.importBundleFromString(future, LoadoutSerializer.ConflictPolicy.OVERWRITE));
+        assertEquals("3,1,2", target.getLoadout("Ranged").getPrayerOrder(0));
+    }
+
+    @Test
+    public void rejectsBundleThatInflatesPastLimit() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(new DeflaterOutputStream(
+                Base64.getUrlEncoder().withoutPadding().wrap(bytes)), StandardCharsets.UTF_8)) {
+            writer.write("PRAYERLOADOUT:Big\n");
+            char[] blankLines = new char[64 * 1024];
+            Arrays.fill(blankLines, '\n');
+            for (int written = 0; written <= LoadoutSerializer.MAX_BUNDLE_BYTES; written += blankLines.length) {
+                writer.write(blankLines);
+            }
+            writer.write("END\n");
+        }
+        String oversized = LoadoutSerializer.BUNDLE_HEADER + LoadoutSerializer.BUNDLE_VERSION + ":"
+                + new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+
+        assertNull(serializer.importBundleFromString(oversized, LoadoutSerializer.ConflictPolicy.OVERWRITE));
+        assertNull(target.getLoadout("Big"));
+    }
+
+    private LoadoutManager newManager() {
+        LoadoutStore store = new LoadoutStore(FakeConfigManager.create(new ConcurrentHashMap<>()), new Gson(),
+                executor, new PluginMetrics());
+        return new LoadoutManager(null, null, store, new PluginMetrics(), executor);
+    }
+
+    private static LoadoutData loadout(String order) {
+        LoadoutData loadout = new LoadoutData();
+        loadout.setPrayerOrder(0, order);
+        return loadout;
+    }
+}
@@ -0,0 +1,122 @@
+package com.prayerloadouts;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LoadoutShareCodeTest {
+    private static final int CHECKSUM_BYTES = 4;
+
+    @Test
+    public void roundTripsLoadout() {
+        LoadoutData loadout = sampleLoadout();
+        loadout.setPrayerOrder(1, PrayerLayout.DEFAULT_ORDER);
+
+        LoadoutData decoded = LoadoutShareCode.decode(LoadoutShareCode.encode("Melee", loadout));
+
+        assertNotNull(decoded);
+        assertEquals("Melee", decoded.getDisplayName());
+        for (int prayerbook = 0; prayerbook < 2; prayerbook++) {
+            assertTrue(decoded.getLayout(prayerbook).sameArrangement(loadout.getLayout(prayerbook)));
+            assertTrue(LoadoutData.FilterSettings.sameSettings(
+                    decoded.getFilters(prayerbook), loadout.getFilters(prayerbook)));
+        }
+        assertEquals("3,1,2", decoded.getPrayerOrder(0));
+        assertEquals(PrayerLayout.DEFAULT_ORDER, decoded.getPrayerOrder(1));
+        assertEquals(Collections.singletonMap("_5", "true"), decoded.getHiddenPrayers(0));
+    }
+
+    @Test
+    public void encodesOnlyRepresentableLoadouts() {
+        assertNull(LoadoutShareCode.encode("Empty", new LoadoutData()));
+
+        LoadoutData loadout = sampleLoadout();
+        loadout.setFilters(0, new LoadoutData.FilterSettings(2, 0, 0, 0, 0, 0));
+        assertNull(LoadoutShareCode.encode("Melee", loadout));
+    }
+
+    @Test
+    public void rejectsBadMagic() {
+        byte[] payload = samplePayload();
+        payload[0] ^= 0x01;
+        assertNull(LoadoutShareCode.decode(withChecksum(payload)));
+    }
+
+    @Test
+    public void rejectsUnknownVersion() {
+        byte[] payload = samplePayload();
+        payload[1]++;
+        assertNull(LoadoutShareCode.decode(withChecksum(payload)));
+    }
+
+    @Test
+    public void rejectsBadChecksum() {
+        byte[] data = Base64.getUrlDecoder().decode(LoadoutShareCode.encode("Melee", sampleLoadout()));
+        data[data.length - 1] ^= 0x01;
+        assertNull(LoadoutShareCode.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(data)));
+
+        data[data.length - 1] ^= 0x01;
+        data[4] ^= 0x01;
+        assertNull(LoadoutShareCode.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(data)));
+    }
+
+    @Test
+    public void rejectsTruncatedInput() {
+        String code = LoadoutShareCode.encode("Melee", sampleLoadout());
+        for (int length = 0; length < code.length(); length++) {
+            assertNull(LoadoutShareCode.decode(code.substring(0, length)));
+        }
+
+        // A truncated payload with a valid checksum must still be rejected
+        byte[] payload = samplePayload();
+        for (int length = 2; length < payload.length; length++) {
+            assertNull(LoadoutShareCode.decode(withChecksum(Arrays.copyOf(payload, length))));
+        }
+        assertNotNull(LoadoutShareCode.decode(withChecksum(payload)));
+    }
+
+    @Test
+    public void rejectsInvalidText() {
+        assertNull(LoadoutShareCode.decode("not a share code!"));
+        assertNull(LoadoutShareCode.decode(""));
+    }
+
+    private static LoadoutData sampleLoadout() {
+        LoadoutData loadout = new LoadoutData();
+        loadout.setPrayerOrder(0, "3,1,2");
+        loadout.setHiddenPrayers(0, Collections.singletonMap("_5", "true"));
+        loadout.setFilters(0, new LoadoutData.FilterSettings(1, 0, 1, 0, 0, 1));
+        return loadout;
+    }
+
+    /**
+     * Gets the sample loadout's share code without its checksum.
+     */
+    private static byte[] samplePayload() {
+        byte[] data = Base64.getUrlDecoder().decode(LoadoutShareCode.encode("Melee", sampleLoadout()));
+        return Arrays.copyOf(data, data.length - CHECKSUM_BYTES);
+    }
+
+    /**
+     * Appends a valid checksum to a payload and encodes it, so only the payload itself can be rejected.
+     */
+    private static String withChecksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long checksum = crc.getValue();
+
+        byte[] data = Arrays.copyOf(payload, payload.length + CHECKSUM_BYTES);
+        for (int i = 0; i < CHECKSUM_BYTES; i++) {
+            data[payload.length + i] = (byte) (checksum >>> (8 * (CHECKSUM_BYTES - 1 - i)));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+    }
+}
@@ -0,0 +1,242 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class LoadoutStoreTest {
+    private final Gson gson = new Gson();
+    private final Map<String, String> config = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void migratesLegacyLoadoutsToShards() {
+        Map<String, LoadoutData> legacy = new LinkedHashMap<>();
+        legacy.put("Melee", loadout("3,1,2"));
+        legacy.put("Ranged", loadout("1,2,3"));
+        config.put(key(LoadoutStore.LEGACY_LOADOUTS_KEY),
+                gson.toJson(legacy, new TypeToken<Map<String, LoadoutData>>() {}.getType()));
+
+        Map<String, LoadoutData> migrated = newStore().readAll();
+
+        assertEquals(Arrays.asList("Melee", "Ranged"), new ArrayList<>(migrated.keySet()));
+        assertFalse(config.containsKey(key(LoadoutStore.LEGACY_LOADOUTS_KEY)));
+        assertTrue(config.containsKey(key("loadout_melee")));
+        assertTrue(config.containsKey(key("loadout_ranged")));
+        assertNotNull(config.get(key(LoadoutStore.MANIFEST_KEY)));
+
+        // A fresh store reads the shards through the manifest
+        Map<String, LoadoutData> reread = newStore().readAll();
+        assertEquals(Arrays.asList("Melee", "Ranged"), new ArrayList<>(reread.keySet()));
+        assertEquals("3,1,2", reread.get("Melee").getPrayerOrder(0));
+        assertEquals("1,2,3", reread.get("Ranged").getPrayerOrder(0));
+    }
+
+    @Test
+    public void migratesLegacyLoadoutsWithCollidingShardKeys() {
+        Map<String, LoadoutData> legacy = new LinkedHashMap<>();
+        legacy.put("A b", loadout("3,1,2"));
+        legacy.put("a_b", loadout("1,2,3"));
+        config.put(key(LoadoutStore.LEGACY_LOADOUTS_KEY),
+                gson.toJson(legacy, new TypeToken<Map<String, LoadoutData>>() {}.getType()));
+
+        newStore().readAll();
+
+        assertEquals("3,1,2", gson.fromJson(config.get(key("loadout_a_b")), LoadoutData.class).getPrayerOrder(0));
+        assertEquals("1,2,3", gson.fromJson(config.get(key("loadout_a_b_2")), LoadoutData.class).getPrayerOrder(0));
+
+        Map<String, LoadoutData> reread = newStore().readAll();
+        assertEquals("3,1,2", reread.get("A b").getPrayerOrder(0));
+        assertEquals("1,2,3", reread.get("a_b").getPrayerOrder(0));
+    }
+
+    @Test
+    public void savedLoadoutsGetDistinctShardKeys() {
+        LoadoutStore store = newStore();
+        store.readAll();
+        store.save("A b", loadout("3,1,2"));
+        store.save("a_b", loadout("1,2,3"));
+        store.save("manifest", loadout("2,3,1"));
+        store.flush();
+
+        assertEquals("3,1,2", gson.fromJson(config.get(key("loadout_a_b")), LoadoutData.class).getPrayerOrder(0));
+        assertEquals("1,2,3", gson.fromJson(config.get(key("loadout_a_b_2")), LoadoutData.class).getPrayerOrder(0));
+        assertEquals("2,3,1",
+                gson.fromJson(config.get(key("loadout_manifest_2")), LoadoutData.class).getPrayerOrder(0));
+
+        Map<String, LoadoutData> reread = newStore().readAll();
+        assertEquals(Arrays.asList("A b", "a_b", "manifest"), new ArrayList<>(reread.keySet()));
+        assertEquals("2,3,1", reread.get("manifest").getPrayerOrder(0));
+    }
+
+    @Test
+    public void deletedLoadoutFreesItsShardKey() {
+        LoadoutStore store = newStore();
+        store.readAll();
+        store.save("A b", loadout("3,1,2"));
+        store.delete("A b");
+        store.save("a_b", loadout("1,2,3"));
+        store.flush();
+
+        assertEquals("1,2,3", gson.fromJson(config.get(key("loadout_a_b")), LoadoutData.class).getPrayerOrder(0));
+        assertFalse(config.containsKey(key("loadout_a_b_2")));
+    }
+
+    @Test
+    public void rebuildsCorruptManifestFromShards() {
+        LoadoutStore store = newStore();
+        store.readAll();
+        store.save("Melee", loadout("Melee", "3,1,2"));
+        store.save("A b", loadout("A b", "1,2,3"));
+        store.flush();
+        config.put(key(LoadoutStore.MANIFEST_KEY), "{\"Melee\":");
+
+        LoadoutStore recovered = newStore();
+        Map<String, LoadoutData> loadouts = recovered.readAll();
+        assertEquals(Arrays.asList("A b", "Melee"), new ArrayList<>(loadouts.keySet()));
+        assertEquals("3,1,2", loadouts.get("Melee").getPrayerOrder(0));
+
+        // A save after recovery must not cut the recovered loadouts out of the manifest
+        recovered.save("Ranged", loadout("Ranged", "2,3,1"));
+        recovered.flush();
+
+        Map<String, LoadoutData> reread = newStore().readAll();
+        assertEquals(Arrays.asList("A b", "Melee", "Ranged"), new ArrayList<>(reread.keySet()));
+        assertEquals("1,2,3", reread.get("A b").getPrayerOrder(0));
+        assertEquals("2,3,1", reread.get("Ranged").getPrayerOrder(0));
+    }
+
+    @Test
+    public void skipsLoadoutWithUnsupportedPrayerbookWithoutLosingIt() {
+        LoadoutStore store = newStore();
+        store.readAll();
+        store.save("Melee", loadout("Melee", "3,1,2"));
+        store.save("Future", loadout("Future", "1,2,3"));
+        store.flush();
+        String unsupported = "{\"displayName\":\"Future\",\"prayerOrders\":{\""
+                + LoadoutData.MAX_PRAYERBOOKS + "\":\"1,2,3\"}}";
+        config.put(key("loadout_future"), unsupported);
+
+        LoadoutStore reread = newStore();
+        assertEquals(Collections.singletonList("Melee"), new ArrayList<>(reread.readAll().keySet()));
+
+        // The unreadable loadout keeps its shard and manifest entry through later writes
+        reread.save("Ranged", loadout("Ranged", "2,3,1"));
+        reread.flush();
+        assertEquals(unsupported, config.get(key("loadout_future")));
+        assertTrue(config.get(key(LoadoutStore.MANIFEST_KEY)).contains("\"Future\":\"loadout_future\""));
+    }
+
+    @Test
+    public void writesOnceChangesStopForQuietPeriod() throws Exception {
+        LoadoutStore store = newStore();
+        store.readAll();
+        store.save("Melee", loadout("Melee", "3,1,2"));
+        Thread.sleep(250);
+        store.save("Ranged", loadout("Ranged", "1,2,3"));
+        Thread.sleep(250);
+
+        // The second change restarted the quiet period
+        assertFalse(config.containsKey(key("loadout_melee")));
+        assertFalse(config.containsKey(key(LoadoutStore.MANIFEST_KEY)));
+
+        awaitKey("loadout_ranged", 2000);
+        assertTrue(config.containsKey(key("loadout_melee")));
+        assertNotNull(config.get(key(LoadoutStore.MANIFEST_KEY)));
+    }
+
+    @Test
+    public void continuousChangesAreWrittenWithinMaxDelay() throws Exception {
+        LoadoutStore store = newStore();
+        store.readAll();
+
+        long start = System.currentTimeMillis();
+        while (!config.containsKey(key("loadout_melee")) && System.currentTimeMillis() - start < 10_000) {
+            store.save("Melee", loadout("Melee", "3,1,2"));
+            Thread.sleep(100);
+        }
+
+        assertTrue(config.containsKey(key("loadout_melee")));
+        assertTrue(System.currentTimeMillis() - start < 7_000);
+    }
+
+    @Test
+    public void flushWritesPendingChangesImmediately() {
+        LoadoutStore store = newStore();
+        store.readAll();
+        store.save("Melee", loadout("Melee", "3,1,2"));
+        store.setLastLoadoutName("Melee");
+        assertFalse(config.containsKey(key("loadout_melee")));
+
+        store.flush();
+        assertTrue(config.containsKey(key("loadout_melee")));
+        assertEquals("Melee", config.get(key(LoadoutManager.LAST_LOADOUT_KEY)));
+    }
+
+    @Test
+    public void discardPendingDropsStagedChanges() throws Exception {
+        LoadoutStore store = newStore();
+        store.readAll();
+        store.save("Melee", loadout("Melee", "3,1,2"));
+        store.discardPending();
+
+        Thread.sleep(1000);
+        store.flush();
+        assertFalse(config.containsKey(key("loadout_melee")));
+    }
+
+    private LoadoutStore newStore() {
+        return new LoadoutStore(FakeConfigManager.create(config), gson, executor, new PluginMetrics());
+    }
+
+    /**
+     * Waits for the store's background flush to write a key.
+     */
+    private void awaitKey(String key, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!config.containsKey(key(key)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(config.containsKey(key(key)));
+    }
+
+    private static String key(String key) {
+        return LoadoutManager.CONFIG_GROUP + "." + key;
+    }
+
+    private static LoadoutData loadout(String order) {
+        return loadout(null, order);
+    }
+
+    private static LoadoutData loadout(String name, String order) {
+        LoadoutData loadout = new LoadoutData(name);
+        loadout.setPrayerOrder(0, order);
+        return loadout;
+    }
+}
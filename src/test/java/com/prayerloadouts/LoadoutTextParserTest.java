@@ -0,0 +1,75 @@
+package com.prayerloadouts;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class LoadoutTextParserTest {
+    @Test
+    public void parsesLoadout() throws Exception {
+        LoadoutData loadout = LoadoutTextParser.parse(new StringReader(
+                "  PRAYERLOADOUT:Melee\nORDER_0:3,1,2\nFILTER_0_blockhealing:1\nHIDDEN_0__5:true\nEND\n"));
+
+        assertEquals("Melee", loadout.getDisplayName());
+        assertEquals("3,1,2", loadout.getPrayerOrder(0));
+        assertEquals(1, loadout.getFilters(0).getBlockHealing());
+        assertEquals("true", loadout.getHiddenPrayers(0).get("_5"));
+    }
+
+    @Test
+    public void reportsMissingHeader() {
+        assertError(parseError("ORDER_0:3,1,2\nEND\n"), 1, 1);
+        assertError(parseError("\n\n   ORDER_0:3,1,2\nEND\n"), 3, 4);
+    }
+
+    @Test
+    public void reportsInvalidName() {
+        assertError(parseError("PRAYERLOADOUT:\nEND\n"), 1, 15);
+        assertError(parseError("PRAYERLOADOUT:Melee,Ranged\nEND\n"), 1, 20);
+    }
+
+    @Test
+    public void reportsInvalidNumbers() {
+        assertError(parseError("PRAYERLOADOUT:Melee\nORDER_x:3,1,2\nEND\n"), 2, 7);
+        assertError(parseError("PRAYERLOADOUT:Melee\nORDER_0x:3,1,2\nEND\n"), 2, 8);
+        assertError(parseError("PRAYERLOADOUT:Melee\n  FILTER_0_blockhealing:1a\nEND\n"), 2, 26);
+        assertError(parseError("PRAYERLOADOUT:Melee\nFILTER_0blockhealing:1\nEND\n"), 2, 9);
+        assertError(parseError("PRAYERLOADOUT:Melee\nHIDDEN_99999999999__5:true\nEND\n"), 2, 8);
+    }
+
+    @Test
+    public void reportsMissingEnd() {
+        assertError(parseError("PRAYERLOADOUT:Melee\nORDER_0:3,1,2\n"), 2, 1);
+    }
+
+    @Test
+    public void reportsInvalidEscapeInBundleName() throws IOException {
+        LoadoutTextParser parser = new LoadoutTextParser(new StringReader("PRAYERLOADOUT:50%off\nEND\n"), true);
+        try {
+            parser.next();
+            fail("expected a parse error");
+        } catch (LoadoutTextParser.ParseException e) {
+            assertError(e, 1, 17);
+        }
+    }
+
+    private static LoadoutTextParser.ParseException parseError(String text) {
+        try {
+            LoadoutTextParser.parse(new StringReader(text));
+        } catch (LoadoutTextParser.ParseException e) {
+            return e;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        throw new AssertionError("expected a parse error");
+    }
+
+    private static void assertError(LoadoutTextParser.ParseException e, int line, int column) {
+        assertEquals(e.getMessage(), line, e.getLine());
+        assertEquals(e.getMessage(), column, e.getColumn());
+    }
+}
@@ -0,0 +1,107 @@
+package com.prayerloadouts;
+
+import net.runelite.client.callback.ClientThread;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class PanelRefreshSchedulerTest {
+    /**
+     * Tasks queued on the client thread. Concurrent because a rebuild on the EDT may queue another.
+     */
+    private final Queue<Runnable> clientThreadTasks = new ConcurrentLinkedQueue<>();
+    private final PluginMetrics metrics = new PluginMetrics();
+    private PrayerLoadoutsPanel panel;
+    private PanelRefreshScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        ClientThread clientThread = mock(ClientThread.class);
+        doAnswer(inv -> {
+            clientThreadTasks.add(inv.getArgument(0));
+            return null;
+        }).when(clientThread).invokeLater(any(Runnable.class));
+
+        panel = mock(PrayerLoadoutsPanel.class);
+        scheduler = new PanelRefreshScheduler(clientThread, metrics);
+        scheduler.setPanel(panel);
+    }
+
+    @Test
+    public void coalescesBurstIntoOneRebuild() throws Exception {
+        scheduler.requestRefresh();
+        scheduler.requestRefresh();
+        scheduler.requestRefresh();
+
+        assertEquals(1, clientThreadTasks.size());
+        verify(panel, never()).rebuild();
+
+        runClientThread();
+        verify(panel, times(1)).rebuild();
+        assertEquals(3, metrics.getCount(PluginMetrics.Counter.REFRESH_REQUESTS));
+    }
+
+    @Test
+    public void requestAfterRebuildSchedulesAnother() throws Exception {
+        scheduler.requestRefresh();
+        runClientThread();
+        scheduler.requestRefresh();
+
+        assertEquals(1, clientThreadTasks.size());
+        runClientThread();
+        verify(panel, times(2)).rebuild();
+    }
+
+    @Test
+    public void requestDuringRebuildSchedulesAnother() throws Exception {
+        AtomicBoolean requested = new AtomicBoolean();
+        doAnswer(inv -> {
+            if (requested.compareAndSet(false, true)) {
+                scheduler.requestRefresh();
+            }
+            return null;
+        }).when(panel).rebuild();
+
+        scheduler.requestRefresh();
+        runClientThread();
+
+        verify(panel, times(2)).rebuild();
+    }
+
+    @Test
+    public void skipsRebuildWithoutPanel() throws Exception {
+        scheduler.setPanel(null);
+        scheduler.requestRefresh();
+        runClientThread();
+
+        scheduler.setPanel(panel);
+        scheduler.requestRefresh();
+        assertEquals(1, clientThreadTasks.size());
+        runClientThread();
+        verify(panel, times(1)).rebuild();
+    }
+
+    /**
+     * Runs queued client thread tasks and the EDT work they hand over, until neither has anything left.
+     */
+    private void runClientThread() throws Exception {
+        Runnable task;
+        while ((task = clientThreadTasks.poll()) != null) {
+            task.run();
+            SwingUtilities.invokeAndWait(() -> {
+            });
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.prayerloadouts;
+
+import com.google.gson.Gson;
+import net.runelite.client.events.ConfigSync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrayerLoadoutsPluginEventsTest {
+    private final Map<String, String> config = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+    private LoadoutManager loadoutManager;
+    private PrayerLoadoutsPlugin plugin;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        LoadoutStore store = new LoadoutStore(FakeConfigManager.create(config), new Gson(), executor,
+                new PluginMetrics());
+        loadoutManager = new LoadoutManager(null, null, store, new PluginMetrics(), executor);
+
+        plugin = new PrayerLoadoutsPlugin();
+        inject(plugin, "loadoutManager", loadoutManager);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void configSyncWritesPendingChanges() {
+        LoadoutData loadout = new LoadoutData("Melee");
+        loadout.setPrayerOrder(0, "3,1,2");
+        loadoutManager.saveLoadoutData("Melee", loadout);
+        assertFalse(config.containsKey(LoadoutManager.CONFIG_GROUP + ".loadout_melee"));
+
+        plugin.onConfigSync(new ConfigSync());
+
+        assertTrue(config.containsKey(LoadoutManager.CONFIG_GROUP + ".loadout_melee"));
+        assertEquals("{\"Melee\":\"loadout_melee\"}",
+                config.get(LoadoutManager.CONFIG_GROUP + "." + LoadoutStore.MANIFEST_KEY));
+    }
+
+    /**
+     * Sets an injected field, standing in for the plugin's injector.
+     */
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
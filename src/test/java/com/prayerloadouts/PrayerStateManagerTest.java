@@ -0,0 +1,215 @@
+package com.prayerloadouts;
+
+import net.runelite.api.Client;
+import net.runelite.api.gameval.VarbitID;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PrayerStateManagerTest {
+    private static final String GROUP = LoadoutManager.PRAYER_CONFIG_GROUP;
+    private static final String ORDER_KEY = LoadoutManager.PRAYER_ORDER_KEY_PREFIX + 0;
+
+    private final Map<String, String> config = new HashMap<>();
+    private final Map<Integer, Integer> varbits = new HashMap<>();
+    private ConfigManager configManager;
+    private Client client;
+    private ClientThread clientThread;
+    private PrayerStateManager prayerStateManager;
+
+    @Before
+    public void setUp() {
+        config.put(GROUP + "." + ORDER_KEY, "3,1,2");
+        config.put(GROUP + "." + ApplyPlan.hiddenKey(0, "_5"), "true");
+        config.put(GROUP + "." + ApplyPlan.hiddenKey(0, "_7"), "true");
+        varbits.put(VarbitID.PRAYER_FILTER_BLOCKLOWTIER, 1);
+
+        configManager = FakeConfigManager.create(config);
+        client = mock(Client.class);
+        when(client.getVarbitValue(anyInt())).thenAnswer(inv -> varbits.getOrDefault(inv.getArgument(0), 0));
+        clientThread = mock(ClientThread.class);
+        prayerStateManager = new PrayerStateManager(client, clientThread, configManager, null, null);
+    }
+
+    @Test
+    public void applyWritesOnlyKeysThatDiffer() {
+        LoadoutData loadout = loadout("3,1,2", "_5", "_9");
+        loadout.setFilters(0, new LoadoutData.FilterSettings(1, 0, 1, 0, 0, 0));
+
+        assertTrue(prayerStateManager.apply(ApplyPlan.compile(loadout, 0)));
+
+        // Order and _5 already match; _7 is no longer hidden and _9 is newly hidden
+        verify(configManager, never()).setConfiguration(GROUP, ORDER_KEY, "3,1,2");
+        verify(configManager, never()).unsetConfiguration(GROUP, ORDER_KEY);
+        verify(configManager, never()).setConfiguration(GROUP, ApplyPlan.hiddenKey(0, "_5"), "true");
+        verify(configManager).unsetConfiguration(GROUP, ApplyPlan.hiddenKey(0, "_7"));
+        verify(configManager).setConfiguration(GROUP, ApplyPlan.hiddenKey(0, "_9"), "true");
+        verify(configManager, times(1)).setConfiguration(anyString(), anyString(), anyString());
+        verify(configManager, times(1)).unsetConfiguration(anyString(), anyString());
+
+        // Only the healing filter differs from the live varbits
+        verify(client).setVarbit(VarbitID.PRAYER_FILTER_BLOCKHEALING, 1);
+        verify(client, times(1)).setVarbit(anyInt(), anyInt());
+    }
+
+    @Test
+    public void applyWritesNothingWhenStateMatches() {
+        LoadoutData loadout = loadout("3,1,2", "_5", "_7");
+        loadout.setFilters(0, new LoadoutData.FilterSettings(1, 0, 0, 0, 0, 0));
+
+        assertFalse(prayerStateManager.apply(ApplyPlan.compile(loadout, 0)));
+
+        verify(configManager, never()).setConfiguration(anyString(), anyString(), anyString());
+        verify(configManager, never()).unsetConfiguration(anyString(), anyString());
+        verify(client, never()).setVarbit(anyInt(), anyInt());
+    }
+
+    @Test
+    public void applyWritesOnlyOrderWhenHiddenPrayersMatch() {
+        assertTrue(prayerStateManager.apply(ApplyPlan.compile(loadout("1,2,3", "_5", "_7"), 0)));
+
+        verify(configManager).setConfiguration(GROUP, ORDER_KEY, "1,2,3");
+        verify(configManager, times(1)).setConfiguration(anyString(), anyString(), anyString());
+        verify(configManager, never()).unsetConfiguration(anyString(), anyString());
+        verify(client, never()).setVarbit(anyInt(), anyInt());
+    }
+
+    @Test
+    public void tracksHiddenPrayersFromConfigChanged() {
+        assertEquals(hidden("_5", "_7"), prayerStateManager.getCurrentHiddenPrayers(0));
+
+        changeConfig(ApplyPlan.hiddenKey(0, "_7"), null);
+        changeConfig(ApplyPlan.hiddenKey(0, "_9"), "true");
+
+        assertEquals(hidden("_5", "_9"), prayerStateManager.getCurrentHiddenPrayers(0));
+        // Read from config once, then kept up to date from the events
+        verify(configManager, times(1)).getConfigurationKeys(anyString());
+    }
+
+    @Test
+    public void dropsLayoutWhenItsConfigChanges() {
+        PrayerLayout layout = prayerStateManager.getCurrentLayout(0);
+        assertEquals("3,1,2", layout.getOrderValue());
+        assertSame(layout, prayerStateManager.getCurrentLayout(0));
+
+        changeConfig(ORDER_KEY, "1,2,3");
+        layout = prayerStateManager.getCurrentLayout(0);
+        assertEquals("1,2,3", layout.getOrderValue());
+
+        changeConfig(ApplyPlan.hiddenKey(0, "_9"), "true");
+        assertTrue(prayerStateManager.getCurrentLayout(0).sameArrangement(
+                PrayerLayout.fromConfig("1,2,3", hidden("_5", "_7", "_9"))));
+    }
+
+    @Test
+    public void keepsLayoutForUnrelatedChanges() {
+        PrayerLayout layout = prayerStateManager.getCurrentLayout(0);
+
+        changeConfig(LoadoutManager.PRAYER_ORDER_KEY_PREFIX + 1, "1,2,3");
+        changeConfig(ApplyPlan.hiddenKey(1, "_5"), "true");
+        ConfigChanged otherGroup = new ConfigChanged();
+        otherGroup.setGroup(LoadoutManager.CONFIG_GROUP);
+        otherGroup.setKey(ORDER_KEY);
+        prayerStateManager.onConfigChanged(otherGroup);
+
+        assertSame(layout, prayerStateManager.getCurrentLayout(0));
+    }
+
+    @Test
+    public void rereadsConfigAfterInvalidate() {
+        prayerStateManager.getCurrentLayout(0);
+
+        // Changed without an event, as when a profile switch replaces the config
+        config.put(GROUP + "." + ORDER_KEY, "1,2,3");
+        config.remove(GROUP + "." + ApplyPlan.hiddenKey(0, "_7"));
+        prayerStateManager.invalidate();
+
+        assertEquals("1,2,3", prayerStateManager.getCurrentLayout(0).getOrderValue());
+        assertEquals(hidden("_5"), prayerStateManager.getCurrentHiddenPrayers(0));
+    }
+
+    @Test
+    public void resetClearsLayoutAndEveryFilterInline() {
+        for (int varbitId : ApplyPlan.FILTER_VARBITS) {
+            varbits.put(varbitId, 1);
+        }
+        when(client.isClientThread()).thenReturn(true);
+        AtomicBoolean completed = new AtomicBoolean();
+
+        prayerStateManager.resetToDefaults(0, () -> completed.set(true));
+
+        assertTrue(completed.get());
+        verify(clientThread, never()).invokeLater(any(Runnable.class));
+        verify(configManager).unsetConfiguration(GROUP, ORDER_KEY);
+        verify(configManager).unsetConfiguration(GROUP, ApplyPlan.hiddenKey(0, "_5"));
+        verify(configManager).unsetConfiguration(GROUP, ApplyPlan.hiddenKey(0, "_7"));
+        for (int varbitId : ApplyPlan.FILTER_VARBITS) {
+            verify(client).setVarbit(varbitId, 0);
+        }
+    }
+
+    @Test
+    public void resetHopsToClientThreadForFilters() {
+        when(client.isClientThread()).thenReturn(false);
+        AtomicBoolean completed = new AtomicBoolean();
+
+        prayerStateManager.resetToDefaults(0, () -> completed.set(true));
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(clientThread).invokeLater(task.capture());
+        verify(client, never()).setVarbit(anyInt(), anyInt());
+        assertFalse(completed.get());
+
+        task.getValue().run();
+        assertTrue(completed.get());
+        verify(client, times(ApplyPlan.FILTER_VARBITS.length)).setVarbit(anyInt(), anyInt());
+    }
+
+    /**
+     * Changes a Prayer plugin config value and posts the ConfigChanged event the client would.
+     * @param value New value, or null to unset the key
+     */
+    private void changeConfig(String key, String value) {
+        ConfigChanged event = new ConfigChanged();
+        event.setGroup(GROUP);
+        event.setKey(key);
+        event.setOldValue(value == null ? config.remove(GROUP + "." + key) : config.put(GROUP + "." + key, value));
+        event.setNewValue(value);
+        prayerStateManager.onConfigChanged(event);
+    }
+
+    private static Map<String, String> hidden(String... prayerKeys) {
+        Map<String, String> hidden = new HashMap<>();
+        for (String prayerKey : prayerKeys) {
+            hidden.put(prayerKey, "true");
+        }
+        return hidden;
+    }
+
+    private static LoadoutData loadout(String order, String... hiddenPrayers) {
+        LoadoutData loadout = new LoadoutData();
+        loadout.setPrayerOrder(0, order);
+        loadout.setHiddenPrayers(0, hidden(hiddenPrayers));
+        return loadout;
+    }
+}